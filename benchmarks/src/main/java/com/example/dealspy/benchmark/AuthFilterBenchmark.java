@@ -0,0 +1,44 @@
+package com.example.dealspy.benchmark;
+
+import com.example.dealspy.auth.config.FirebaseAuthenticationFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per-request work {@link FirebaseAuthenticationFilter} does around token verification: the
+ * public-path check and building the authentication with its details. Verification itself is a
+ * Firebase call and is measured in production by the dealspy.auth.token.verify timer instead.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class AuthFilterBenchmark {
+
+    // A protected path walks the whole check; public ones return early at different points
+    @Param({"/watchlist", "/auth/verify", "/products/search", "/actuator/prometheus"})
+    private String path;
+
+    @Benchmark
+    public boolean isPublicPath() {
+        return FirebaseAuthenticationFilter.isPublicPath(path);
+    }
+
+    @Benchmark
+    public UsernamePasswordAuthenticationToken authenticationFor() {
+        return FirebaseAuthenticationFilter.authenticationFor("kX9fE2pQ7vT1mZ4rL8sN3wY6bH0c", "user@example.com", "Example User");
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.dealspy.benchmark;
+
+import com.example.dealspy.model.Product;
+import com.example.dealspy.repo.ProductRepo;
+import com.example.dealspy.service.NotificationService;
+import com.example.dealspy.service.ProductService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The JVM side of {@link ProductService#sendDropNotifications}: the loop over the products the
+ * partial index on is_price_dropped returns, handing each to {@link NotificationService}. The
+ * repository answers from memory and the notifications are swallowed by a blackhole, so neither
+ * the query nor the FCM fan-out is in the number.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class DropNotificationBenchmark {
+
+    @Param({"200", "10000"})
+    private int drops;
+
+    private ProductService productService;
+
+    @Setup(Level.Trial)
+    public void setUp(Blackhole blackhole) {
+        List<Product> dropped = new ArrayList<>(drops);
+        for (int i = 0; i < drops; i++) {
+            Product product = MapperBenchmark.product(i);
+            product.setIsPriceDropped(true);
+            dropped.add(product);
+        }
+
+        ProductRepo productRepo = (ProductRepo) Proxy.newProxyInstance(ProductRepo.class.getClassLoader(),
+                new Class<?>[]{ProductRepo.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("findDroppedProducts")) {
+                        return dropped;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        NotificationService notificationService = new NotificationService(null, null, null, null,
+                new SimpleMeterRegistry()) {
+            @Override
+            public void notifyPriceDropAsync(Integer productId, String productName, Double newPrice) {
+                blackhole.consume(productId);
+                blackhole.consume(productName);
+                blackhole.consume(newPrice);
+            }
+        };
+        productService = new ProductService(productRepo, null, notificationService, null, null, null, null, null,
+                null, new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public void sendDropNotifications() {
+        productService.sendDropNotifications();
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.dealspy.benchmark;
+
+import com.example.dealspy.dto.SaveForLaterDTO;
+import com.example.dealspy.dto.WatchlistResponseDTO;
+import com.example.dealspy.mapper.SaveForLaterMapper;
+import com.example.dealspy.mapper.SaveForLaterMapperImpl;
+import com.example.dealspy.mapper.WatchlistMapper;
+import com.example.dealspy.mapper.WatchlistMapperImpl;
+import com.example.dealspy.model.Product;
+import com.example.dealspy.model.SaveForLater;
+import com.example.dealspy.model.User;
+import com.example.dealspy.model.Watchlist;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Entity-to-DTO conversion by the generated MapStruct mappers, per list of watchlist / saved rows. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MapperBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int items;
+
+    private final WatchlistMapper watchlistMapper = new WatchlistMapperImpl();
+    private final SaveForLaterMapper saveForLaterMapper = new SaveForLaterMapperImpl();
+
+    private List<Watchlist> watchlist;
+    private List<SaveForLater> saveForLater;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        User user = new User();
+        user.setUid("uid-1");
+        watchlist = new ArrayList<>(items);
+        saveForLater = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            Product product = product(i);
+            Watchlist w = new Watchlist();
+            w.setUser(user);
+            w.setProduct(product);
+            watchlist.add(w);
+            SaveForLater s = new SaveForLater();
+            s.setUser(user);
+            s.setProduct(product);
+            saveForLater.add(s);
+        }
+    }
+
+    @Benchmark
+    public List<WatchlistResponseDTO> watchlistToResponseDTOs() {
+        return watchlistMapper.toResponseDTOList(watchlist);
+    }
+
+    @Benchmark
+    public List<SaveForLaterDTO> saveForLaterToDTOs() {
+        return saveForLaterMapper.toDTOList(saveForLater);
+    }
+
+    static Product product(int i) {
+        Product product = new Product();
+        product.setPid(i + 1);
+        product.setName("Samsung Galaxy S24 Ultra 5G (Titanium Gray, 12GB RAM, 256GB Storage) #" + i);
+        product.setBrand("Samsung");
+        product.setPlatform(i % 2 == 0 ? "Flipkart" : "Amazon");
+        product.setImageUrl("https://rukminim2.flixcart.com/image/416/416/xif0q/mobile/" + i + ".jpeg");
+        product.setDeepLink("https://www.flipkart.com/samsung-galaxy-s24-ultra/p/itm" + i);
+        product.setCurrentPrice(100_000.0 + i);
+        product.setLastLowestPrice(110_000.0 + i);
+        product.setIsPriceDropped(i % 10 == 0);
+        return product;
+    }
+}
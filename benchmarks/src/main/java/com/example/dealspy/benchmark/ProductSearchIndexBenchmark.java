@@ -0,0 +1,101 @@
+package com.example.dealspy.benchmark;
+
+import com.example.dealspy.index.ProductSearchIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Build time and query latency of {@link ProductSearchIndex} on a synthetic catalog.
+ * Run with {@code java -jar benchmarks/target/benchmarks.jar ProductSearchIndexBenchmark}.
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ProductSearchIndexBenchmark {
+
+    private static final String[] BRANDS = {"Samsung", "Apple", "OnePlus", "Xiaomi", "Realme", "Sony", "Boat",
+            "Noise", "Lenovo", "HP", "Dell", "Asus", "Nike", "Puma", "Adidas", "Philips", "Prestige", "Bajaj"};
+    private static final String[] KINDS = {"Smartphone", "Laptop", "Headphones", "Earbuds", "Smartwatch", "Shoes",
+            "Trimmer", "Mixer Grinder", "Television", "Tablet", "Speaker", "Power Bank", "Monitor", "Keyboard"};
+    private static final String[] TRAITS = {"Pro", "Max", "Ultra", "Lite", "Plus", "Neo", "Prime", "Air", "5G",
+            "Wireless", "Bluetooth", "Gaming", "Black", "Blue", "Silver", "128GB", "256GB", "8GB RAM"};
+    private static final String[] QUERIES = {"s", "sam", "samsung galaxy", "iphone 15", "boat ear", "lap",
+            "gaming laptop 16", "wireless headph", "nike shoes blu", "ultra 5g"};
+    // What autocomplete sends on the first keystrokes
+    private static final String[] SHORT_QUERIES = {"s", "sa", "sam", "l", "la", "lap", "b", "bo", "u", "5"};
+
+    @Param({"100000", "1000000"})
+    private int products;
+
+    private List<ProductSearchIndex.Entry> catalog;
+    private ProductSearchIndex index;
+    private int nextQuery;
+    private int nextShortQuery;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        catalog = syntheticCatalog(products);
+        index = build(catalog);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 3)
+    public ProductSearchIndex buildIndex() {
+        return build(catalog);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void searchTop10(Blackhole bh) {
+        String query = QUERIES[nextQuery++ % QUERIES.length];
+        bh.consume(index.search(query, 10));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void searchShortPrefixTop10(Blackhole bh) {
+        String query = SHORT_QUERIES[nextShortQuery++ % SHORT_QUERIES.length];
+        bh.consume(index.search(query, 10));
+    }
+
+    private static ProductSearchIndex build(List<ProductSearchIndex.Entry> catalog) {
+        ProductSearchIndex index = new ProductSearchIndex(pid -> pid % 97);
+        catalog.forEach(index::upsert);
+        return index;
+    }
+
+    static List<ProductSearchIndex.Entry> syntheticCatalog(int size) {
+        SplittableRandom random = new SplittableRandom(42);
+        ProductSearchIndex.Entry[] entries = new ProductSearchIndex.Entry[size];
+        for (int pid = 0; pid < size; pid++) {
+            String brand = BRANDS[random.nextInt(BRANDS.length)];
+            String name = brand + " " + KINDS[random.nextInt(KINDS.length)] + " "
+                    + TRAITS[random.nextInt(TRAITS.length)] + " " + TRAITS[random.nextInt(TRAITS.length)]
+                    + " " + (random.nextInt(2_000) + 1);
+            entries[pid] = new ProductSearchIndex.Entry(pid, name, brand, "Amazon",
+                    null, null, 500 + random.nextInt(100_000) / 1.0);
+        }
+        return List.of(entries);
+    }
+}
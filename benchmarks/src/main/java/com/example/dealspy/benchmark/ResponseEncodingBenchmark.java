@@ -0,0 +1,93 @@
+package com.example.dealspy.benchmark;
+
+import com.example.dealspy.common.ApiResponse;
+import com.example.dealspy.config.BinaryEncodingConfig;
+import com.example.dealspy.dto.BestOfferDTO;
+import com.example.dealspy.dto.WatchlistResponseDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization time of a watchlist response as JSON, Smile and CBOR; the encoded sizes are printed
+ * once per trial. Run with {@code java -jar benchmarks/target/benchmarks.jar ResponseEncodingBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ResponseEncodingBenchmark {
+
+    @Param({"50", "1000", "10000"})
+    private int items;
+
+    private ObjectMapper json;
+    private ObjectMapper smile;
+    private ObjectMapper cbor;
+    private ApiResponse<List<WatchlistResponseDTO>> response;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        // Same builder defaults the application's converters start from
+        json = Jackson2ObjectMapperBuilder.json().build();
+        smile = Jackson2ObjectMapperBuilder.json().factory(BinaryEncodingConfig.smileFactory()).build();
+        cbor = Jackson2ObjectMapperBuilder.json().factory(new CBORFactory()).build();
+        response = new ApiResponse<>(true, "watchlist fetched successfully", watchlist(items));
+
+        int jsonBytes = json.writeValueAsBytes(response).length;
+        int smileBytes = smile.writeValueAsBytes(response).length;
+        int cborBytes = cbor.writeValueAsBytes(response).length;
+        System.out.printf("%n%d items: json %d B, smile %d B (%.0f%%), cbor %d B (%.0f%%)%n", items,
+                jsonBytes, smileBytes, 100.0 * smileBytes / jsonBytes, cborBytes, 100.0 * cborBytes / jsonBytes);
+    }
+
+    @Benchmark
+    public byte[] json() throws Exception {
+        return json.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] smile() throws Exception {
+        return smile.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] cbor() throws Exception {
+        return cbor.writeValueAsBytes(response);
+    }
+
+    static List<WatchlistResponseDTO> watchlist(int size) {
+        SplittableRandom random = new SplittableRandom(7);
+        List<WatchlistResponseDTO> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String name = "Samsung Galaxy S24 Ultra 5G (Titanium Gray, 12GB RAM, 256GB Storage) #" + i;
+            double price = 50_000 + random.nextInt(100_000);
+            list.add(new WatchlistResponseDTO(name, "Samsung", "Flipkart",
+                    "https://rukminim2.flixcart.com/image/416/416/xif0q/mobile/" + Integer.toHexString(random.nextInt()) + ".jpeg",
+                    "https://www.flipkart.com/samsung-galaxy-s24-ultra/p/itm" + Long.toHexString(random.nextLong()),
+                    price, price * 1.1,
+                    new BestOfferDTO(name, "Amazon", "https://www.amazon.in/dp/B0" + Integer.toHexString(random.nextInt()),
+                            price * 0.97)));
+        }
+        return list;
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.dealspy.benchmark;
+
+import com.example.dealspy.ratelimit.TokenBucketLimiter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate-limit checks per second across a population of callers, from several threads at once.
+ * Run with {@code java -jar benchmarks/target/benchmarks.jar TokenBucketLimiterBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Threads(4)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TokenBucketLimiterBenchmark {
+
+    @Param({"1000", "100000"})
+    private int callers;
+
+    private TokenBucketLimiter limiter;
+    private TokenBucketLimiter.Limit limit;
+    private String[] keys;
+
+    @Setup
+    public void setUp() {
+        limiter = new TokenBucketLimiter(64);
+        limit = TokenBucketLimiter.Limit.perMinute(600, 100);
+        keys = new String[callers];
+        for (int i = 0; i < callers; i++) {
+            keys[i] = "u:user-" + i + "#0";
+        }
+    }
+
+    @Benchmark
+    public long tryAcquire() {
+        return limiter.tryAcquire(keys[ThreadLocalRandom.current().nextInt(keys.length)], limit);
+    }
+}
@@ -2,6 +2,7 @@ package com.example.dealspy;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -11,8 +12,13 @@ import org.springframework.scheduling.annotation.Scheduled;
 @EnableScheduling
 public class DealspyApplication {
 
+	// Startup steps kept for the timeline (logged once ready, and served at /actuator/startup)
+	private static final int STARTUP_STEPS = 10_000;
+
 	public static void main(String[] args) {
-		SpringApplication.run(DealspyApplication.class, args);
+		SpringApplication application = new SpringApplication(DealspyApplication.class);
+		application.setApplicationStartup(new BufferingApplicationStartup(STARTUP_STEPS));
+		application.run(args);
 	}
 
 }
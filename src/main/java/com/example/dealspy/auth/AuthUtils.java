@@ -1,5 +1,6 @@
 package com.example.dealspy.auth;
 
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
@@ -14,4 +15,15 @@ public class AuthUtils {
         }
         return (String) authentication.getPrincipal();
     }
+
+    /** The authenticated uid on this thread, or null (scheduled jobs, anonymous requests). */
+    public static String findCurrentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken
+                || !(authentication.getPrincipal() instanceof String uid)) {
+            return null;
+        }
+        return uid;
+    }
 }
\ No newline at end of file
@@ -4,12 +4,16 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseAuthException;
 import com.google.firebase.auth.FirebaseToken;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.LoggerFactory;
 import org.slf4j.Logger;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
@@ -26,13 +30,18 @@ public class FirebaseAuthenticationFilter extends OncePerRequestFilter {
     private static final Logger logger = LoggerFactory.getLogger(FirebaseAuthenticationFilter.class);
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObjectProvider<FirebaseAuth> firebaseAuth;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request,
                                     HttpServletResponse response,
                                     FilterChain filterChain) throws ServletException, IOException {
         String requestPath = request.getRequestURI();
-        if (requestPath.startsWith("/auth/") ||
-                requestPath.equals("/") || requestPath.startsWith("/error") || requestPath.startsWith("/products/") || requestPath.equals("/health") || requestPath.equals("/docs")) {
+        if (isPublicPath(requestPath)) {
             filterChain.doFilter(request, response);
             return;
         }
@@ -47,24 +56,23 @@ public class FirebaseAuthenticationFilter extends OncePerRequestFilter {
 
         String token = authHeader.substring(7);
 
+        Timer.Sample verification = Timer.start(meterRegistry);
         try {
-            FirebaseToken firebaseToken = FirebaseAuth.getInstance().verifyIdToken(token);
+            FirebaseToken firebaseToken;
+            try {
+                firebaseToken = firebaseAuth.getObject().verifyIdToken(token);
+                verification.stop(meterRegistry.timer("dealspy.auth.token.verify", "outcome", "valid"));
+            } catch (FirebaseAuthException e) {
+                verification.stop(meterRegistry.timer("dealspy.auth.token.verify", "outcome", "invalid"));
+                throw e;
+            } catch (RuntimeException e) {
+                verification.stop(meterRegistry.timer("dealspy.auth.token.verify", "outcome", "error"));
+                throw e;
+            }
             logger.debug("Firebase token verified successfully for user: {}", firebaseToken.getUid());
 
-            UsernamePasswordAuthenticationToken authentication =
-                    new UsernamePasswordAuthenticationToken(
-                            firebaseToken.getUid(),
-                            null,
-                            new ArrayList<>()
-                    );
-            // Add additional user info to authentication details
-            Map<String, Object> details = new HashMap<>();
-            details.put("email", firebaseToken.getEmail());
-            details.put("name", firebaseToken.getName());
-            details.put("uid", firebaseToken.getUid());
-            authentication.setDetails(details);
-
-            SecurityContextHolder.getContext().setAuthentication(authentication);
+            SecurityContextHolder.getContext().setAuthentication(
+                    authenticationFor(firebaseToken.getUid(), firebaseToken.getEmail(), firebaseToken.getName()));
             filterChain.doFilter(request, response);
 
         } catch (FirebaseAuthException e) {
@@ -78,6 +86,28 @@ public class FirebaseAuthenticationFilter extends OncePerRequestFilter {
         }
     }
 
+    public static boolean isPublicPath(String requestPath) {
+        return requestPath.startsWith("/auth/") ||
+                requestPath.equals("/") || requestPath.startsWith("/error") || requestPath.startsWith("/products/") || requestPath.equals("/health") || requestPath.equals("/docs") ||
+                requestPath.startsWith("/actuator/");
+    }
+
+    public static UsernamePasswordAuthenticationToken authenticationFor(String uid, String email, String name) {
+        UsernamePasswordAuthenticationToken authentication =
+                new UsernamePasswordAuthenticationToken(
+                        uid,
+                        null,
+                        new ArrayList<>()
+                );
+        // Add additional user info to authentication details
+        Map<String, Object> details = new HashMap<>();
+        details.put("email", email);
+        details.put("name", name);
+        details.put("uid", uid);
+        authentication.setDetails(details);
+        return authentication;
+    }
+
     private void sendErrorResponse(HttpServletResponse response, int status,
                                    String statusValue, String message) throws IOException {
         response.setStatus(status);
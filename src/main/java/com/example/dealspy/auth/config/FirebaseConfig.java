@@ -4,11 +4,13 @@ import com.google.auth.oauth2.GoogleCredentials;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.FirebaseOptions;
 import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.messaging.FirebaseMessaging;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.core.io.ClassPathResource;
 
 import java.io.File;
@@ -16,6 +18,8 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 
+// Lazy: reading credentials and initializing the SDK is kept off the startup path; the filter,
+// AuthController and FCMService resolve these through ObjectProvider on first use
 @Configuration
 public class FirebaseConfig {
 
@@ -25,6 +29,7 @@ public class FirebaseConfig {
     private String firebaseConfigPath;
 
     @Bean
+    @Lazy
     public FirebaseApp firebaseApp() throws IOException {
         logger.info("=== FIREBASE INITIALIZATION START ===");
         logger.info("Config path: {}", firebaseConfigPath);
@@ -71,9 +76,16 @@ public class FirebaseConfig {
     }
 
     @Bean
+    @Lazy
     public FirebaseAuth firebaseAuth() throws IOException {
         FirebaseAuth auth = FirebaseAuth.getInstance(firebaseApp());
         logger.info("✅ FirebaseAuth instance created");
         return auth;
     }
+
+    @Bean
+    @Lazy
+    public FirebaseMessaging firebaseMessaging() throws IOException {
+        return FirebaseMessaging.getInstance(firebaseApp());
+    }
 }
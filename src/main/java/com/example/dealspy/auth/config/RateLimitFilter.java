@@ -0,0 +1,115 @@
+package com.example.dealspy.auth.config;
+
+import com.example.dealspy.ratelimit.RateLimitProperties;
+import com.example.dealspy.ratelimit.TokenBucketLimiter;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.PathContainer;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs right after {@link FirebaseAuthenticationFilter}: authenticated requests are limited per
+ * verified uid, anonymous {@code /products/**} requests per client IP. Other anonymous paths
+ * ({@code /auth/**}, health) are not limited here.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitFilter.class);
+    private static final byte[] TOO_MANY_REQUESTS_BODY =
+            "{\"status\":\"error\",\"message\":\"Too many requests\"}".getBytes(StandardCharsets.UTF_8);
+
+    @Autowired
+    private RateLimitProperties properties;
+
+    private TokenBucketLimiter limiter;
+    private List<Rule> rules;
+    private Rule defaultRule;
+
+    private record Rule(String id, String method, PathPattern pattern, TokenBucketLimiter.Limit limit) {
+        boolean matches(String requestMethod, PathContainer path) {
+            return (method == null || method.equalsIgnoreCase(requestMethod)) && pattern.matches(path);
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        limiter = new TokenBucketLimiter(properties.getStripes());
+        rules = new ArrayList<>();
+        for (RateLimitProperties.Rule rule : properties.getRules()) {
+            // The id keeps each rule's buckets apart, so one user's endpoints don't share a budget
+            rules.add(new Rule("#" + rules.size(), rule.getMethod(),
+                    PathPatternParser.defaultInstance.parse(rule.getPattern()),
+                    TokenBucketLimiter.Limit.perMinute(rule.getPerMinute(), rule.getBurst())));
+        }
+        defaultRule = new Rule("#*", null, null,
+                TokenBucketLimiter.Limit.perMinute(properties.getDefaultPerMinute(), properties.getDefaultBurst()));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        if (!properties.isEnabled()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String requestPath = request.getRequestURI();
+        String caller;
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication instanceof UsernamePasswordAuthenticationToken && authentication.getPrincipal() instanceof String uid) {
+            caller = "u:" + uid;
+        } else if (requestPath.startsWith("/products/")) {
+            caller = "ip:" + request.getRemoteAddr();
+        } else {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        Rule rule = match(request.getMethod(), requestPath);
+        long waitNanos = limiter.tryAcquire(caller + rule.id(), rule.limit());
+        if (waitNanos > 0) {
+            logger.debug("Rate limited {} on {} {}", caller, request.getMethod(), requestPath);
+            response.setStatus(429);
+            long retryAfterSeconds = TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1);
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            response.setContentType("application/json");
+            response.getOutputStream().write(TOO_MANY_REQUESTS_BODY);
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private Rule match(String method, String requestPath) {
+        if (rules.isEmpty()) {
+            return defaultRule;
+        }
+        PathContainer path = PathContainer.parsePath(requestPath);
+        for (Rule rule : rules) {
+            if (rule.matches(method, path)) {
+                return rule;
+            }
+        }
+        return defaultRule;
+    }
+}
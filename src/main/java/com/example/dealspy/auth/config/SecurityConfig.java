@@ -1,11 +1,18 @@
 package com.example.dealspy.auth.config;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
@@ -20,15 +27,53 @@ public class SecurityConfig {
 
     @Autowired
     private FirebaseAuthenticationFilter firebaseAuthenticationFilter;
+    @Autowired
+    private RateLimitFilter rateLimitFilter;
+
+    @Value("${dealspy.metrics.username:prometheus}")
+    private String metricsUsername;
+
+    @Value("${dealspy.metrics.password:}")
+    private String metricsPassword;
+
+    // Prometheus scrapes (and the startup timeline and health details are read) with HTTP basic
+    // auth; with no password configured the endpoints are closed
+    @Bean
+    @Order(1)
+    public SecurityFilterChain metricsFilterChain(HttpSecurity http) throws Exception {
+        http
+                .securityMatcher(EndpointRequest.to("prometheus", "startup", "health"))
+                .csrf(csrf -> csrf.disable())
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .httpBasic(Customizer.withDefaults())
+                .authorizeHttpRequests(authz -> {
+                    if (metricsPassword.isBlank()) {
+                        authz.anyRequest().denyAll();
+                    } else {
+                        authz.anyRequest().authenticated();
+                    }
+                });
+        if (!metricsPassword.isBlank()) {
+            http.userDetailsService(new InMemoryUserDetailsManager(User.withUsername(metricsUsername)
+                    .password("{noop}" + metricsPassword)
+                    .roles("METRICS")
+                    .build()));
+        }
+        return http.build();
+    }
 
     @Bean
+    @Order(2)
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .csrf(csrf -> csrf.disable())
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .addFilterBefore(firebaseAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+                .addFilterAfter(rateLimitFilter, FirebaseAuthenticationFilter.class)
                 .authorizeHttpRequests(authz -> authz
+                        // Re-dispatches of already authorized streaming responses (price SSE)
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/auth/**", "/", "/error", "/products/**", "/health", "/docs","/swagger-ui/index.html").permitAll()
                         .anyRequest().authenticated()
                 );
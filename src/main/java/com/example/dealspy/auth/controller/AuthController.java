@@ -1,14 +1,18 @@
 package com.example.dealspy.auth.controller;
 
 import com.example.dealspy.common.ApiResponse;
+import com.example.dealspy.health.DependencyProber;
+import com.example.dealspy.health.DependencyProber.Dependency;
 import com.example.dealspy.service.UserService;
-import com.google.firebase.FirebaseApp;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseAuthException;
 import com.google.firebase.auth.FirebaseToken;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -24,35 +28,44 @@ public class AuthController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private ObjectProvider<FirebaseAuth> firebaseAuth;
+
+    @Autowired
+    private DependencyProber dependencyProber;
+
+    // Answered from the background prober's last results, no remote call per request. The status
+    // is this node's own readiness (Postgres); Firebase and FastAPI are reported but an outage of
+    // either doesn't take the node out of rotation
     @GetMapping("/health")
     public ResponseEntity<Map<String, Object>> healthCheck() {
         Map<String, Object> health = new HashMap<>();
 
-        try {
-            // Check Firebase initialization
-            if (FirebaseApp.getApps().isEmpty()) {
-                health.put("firebase", "NOT_INITIALIZED");
-                health.put("status", "ERROR");
-                return ResponseEntity.status(500).body(health);
-            }
-
-            // Try to access Firebase Auth
-            FirebaseAuth.getInstance();
+        DependencyProber.Probe firebase = dependencyProber.last(Dependency.FIREBASE);
+        if (firebase == null) {
+            health.put("firebase", "NOT_INITIALIZED");
+        } else if (dependencyProber.isUp(Dependency.FIREBASE)) {
             health.put("firebase", "CONNECTED");
-
-            // Try a simple operation
-            FirebaseAuth.getInstance().listUsers(null, 1);
             health.put("firebase_auth", "WORKING");
-            health.put("status", "OK");
-
-            return ResponseEntity.ok(health);
-
-        } catch (Exception e) {
+        } else {
             health.put("firebase", "ERROR");
-            health.put("error", e.getMessage());
-            health.put("status", "ERROR");
-            return ResponseEntity.status(500).body(health);
+            health.put("error", firebase.error() != null ? firebase.error() : "no recent probe result");
+        }
+        if (firebase != null) {
+            health.put("checked_at", firebase.checkedAt().toString());
         }
+        health.put("fastapi", dependencyProber.last(Dependency.FASTAPI) == null ? "UNKNOWN"
+                : dependencyProber.isUp(Dependency.FASTAPI) ? "UP" : "DOWN");
+
+        if (dependencyProber.last(Dependency.POSTGRES) == null) {
+            health.put("database", "UNKNOWN");
+            health.put("status", "STARTING");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(health);
+        }
+        boolean ready = dependencyProber.isUp(Dependency.POSTGRES);
+        health.put("database", ready ? "UP" : "DOWN");
+        health.put("status", ready ? "OK" : "ERROR");
+        return ResponseEntity.status(ready ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE).body(health);
     }
 
     @GetMapping("/verify")
@@ -61,9 +74,12 @@ public class AuthController {
             @RequestHeader(value = "X-FCM-TOKEN", required = false) String fcmToken) {
 
         try {
-            // Check Firebase initialization
-            if (FirebaseApp.getApps().isEmpty()) {
-                logger.error("Firebase not initialized");
+            // Check Firebase initialization (happens on first use)
+            FirebaseAuth auth;
+            try {
+                auth = firebaseAuth.getObject();
+            } catch (BeansException e) {
+                logger.error("Firebase not initialized", e);
                 return errorResponse(500, "Server configuration error - Firebase not initialized");
             }
 
@@ -76,7 +92,7 @@ public class AuthController {
             String token = authHeader.substring(7);
 
             // Verify Firebase token
-            FirebaseToken decodedToken = FirebaseAuth.getInstance().verifyIdToken(token);
+            FirebaseToken decodedToken = auth.verifyIdToken(token);
 
             String uid = decodedToken.getUid();
             String name = decodedToken.getName();
@@ -105,13 +121,7 @@ public class AuthController {
 
     private void handleUserDatabase(String uid, String email, String name, String fcmToken) {
         try {
-            if (!userService.isUserExist(uid)) {
-                userService.addUserDetails(uid, email, name, fcmToken);
-                logger.info("New user saved: {}", uid);
-            } else if (fcmToken != null && !fcmToken.isEmpty()) {
-                userService.updateUserFcmToken(uid, fcmToken);
-                logger.info("FCM token updated for: {}", uid);
-            }
+            userService.syncVerifiedUser(uid, email, name, fcmToken);
         } catch (Exception e) {
             logger.error("Database operation failed", e);
             throw new RuntimeException("Database error: " + e.getMessage());
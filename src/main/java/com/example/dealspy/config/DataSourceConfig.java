@@ -0,0 +1,76 @@
+package com.example.dealspy.config;
+
+import com.example.dealspy.db.ReplicaProperties;
+import com.example.dealspy.db.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The primary pool is the one Boot would create from {@code spring.datasource.*}; the application
+ * (JPA, Flyway, JdbcTemplate) uses it through {@link ReplicaRoutingDataSource}, which adds one pool
+ * per {@code dealspy.replicas.urls} entry. The replica pools connect lazily, so a node without a
+ * reachable replica still starts.
+ */
+@Configuration
+public class DataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource routingDataSource(HikariDataSource primaryDataSource, DataSourceProperties primary,
+                                                     ReplicaProperties replicas, MeterRegistry meterRegistry) {
+        List<HikariDataSource> pools = new ArrayList<>();
+        for (String url : replicas.getUrls()) {
+            HikariDataSource pool = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(primary.determineDriverClassName())
+                    .url(url.trim())
+                    .username(replicas.getUsername() != null ? replicas.getUsername() : primary.determineUsername())
+                    .password(replicas.getPassword() != null ? replicas.getPassword() : primary.determinePassword())
+                    .build();
+            pool.setPoolName("replica-" + (pools.size() + 1));
+            pool.setMaximumPoolSize(replicas.getPoolSize());
+            pool.setReadOnly(true);
+            // A dead replica must not hold a read (or the lag check) for Hikari's default 30 s
+            pool.setConnectionTimeout(2000);
+            pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            pools.add(pool);
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, pools, replicas, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource routingDataSource) {
+        return lazy(routingDataSource);
+    }
+
+    /**
+     * Fetches the pooled connection only at the first statement, when the transaction's read-only
+     * flag is known. The defaults are given (Hikari and Postgres defaults) so the proxy never has
+     * to fetch a connection just to learn them, which would route before the flag is set.
+     */
+    public static DataSource lazy(ReplicaRoutingDataSource routingDataSource) {
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(routingDataSource);
+        proxy.setDefaultAutoCommit(true);
+        proxy.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        return proxy;
+    }
+}
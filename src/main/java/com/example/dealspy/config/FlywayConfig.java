@@ -0,0 +1,29 @@
+package com.example.dealspy.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@Slf4j
+public class FlywayConfig {
+
+    /**
+     * The CDS training run in the Dockerfile starts the app without a database. With AOT the
+     * Flyway beans are fixed at build time, so spring.flyway.enabled can't turn them off there;
+     * dealspy.startup.training-run skips the migration instead.
+     */
+    @Bean
+    public FlywayMigrationStrategy flywayMigrationStrategy(
+            @Value("${dealspy.startup.training-run:false}") boolean trainingRun) {
+        return flyway -> {
+            if (trainingRun) {
+                log.info("Training run, skipping Flyway migration");
+                return;
+            }
+            flyway.migrate();
+        };
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.dealspy.config;
+
+import com.example.dealspy.db.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Meters that Boot's auto-configuration doesn't already provide. Repository invocations, HTTP
+ * server/client requests (including FastAPI calls) and the raw HikariCP pool gauges are
+ * auto-instrumented; histogram buckets for all of them are set in application.properties.
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Share of each pool (primary and replicas) in use plus threads waiting for a connection;
+     * above 1 means requests queue.
+     */
+    @Bean
+    public MeterBinder connectionPoolSaturation(ReplicaRoutingDataSource routingDataSource) {
+        return registry -> routingDataSource.pools().values().forEach(hikari ->
+                Gauge.builder("dealspy.db.pool.saturation", hikari, MetricsConfig::saturation)
+                        .tag("pool", String.valueOf(hikari.getPoolName()))
+                        .register(registry));
+    }
+
+    private static double saturation(HikariDataSource hikari) {
+        HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+        int max = hikari.getMaximumPoolSize();
+        if (pool == null || max <= 0) {
+            return Double.NaN;
+        }
+        return (double) (pool.getActiveConnections() + pool.getThreadsAwaitingConnection()) / max;
+    }
+}
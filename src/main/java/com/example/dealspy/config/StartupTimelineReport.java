@@ -0,0 +1,75 @@
+package com.example.dealspy.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Logs where boot time went once the application is ready: the top-level startup phases, and the
+ * beans that took longest to create by self time (the creation of the dependencies they pulled in
+ * is subtracted, so a bean isn't blamed for what it triggered). The full timeline is served at
+ * /actuator/startup.
+ */
+@Component
+@Slf4j
+public class StartupTimelineReport {
+
+    private static final String BEAN_STEP = "spring.beans.instantiate";
+
+    @Value("${dealspy.startup.report-beans:15}")
+    private int reportBeans;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void report(ApplicationReadyEvent event) {
+        if (!(event.getApplicationContext().getApplicationStartup() instanceof BufferingApplicationStartup startup)) {
+            return;
+        }
+        List<StartupTimeline.TimelineEvent> events = startup.getBufferedTimeline().getEvents();
+
+        Map<Long, Duration> selfTime = new HashMap<>();
+        for (StartupTimeline.TimelineEvent e : events) {
+            selfTime.put(e.getStartupStep().getId(), e.getDuration());
+        }
+        for (StartupTimeline.TimelineEvent e : events) {
+            Long parent = e.getStartupStep().getParentId();
+            if (parent != null) {
+                selfTime.computeIfPresent(parent, (id, time) -> time.minus(e.getDuration()));
+            }
+        }
+
+        String phases = events.stream()
+                .filter(e -> e.getStartupStep().getParentId() == null)
+                .map(e -> e.getStartupStep().getName() + "=" + e.getDuration().toMillis() + "ms")
+                .collect(Collectors.joining(", "));
+        String beans = events.stream()
+                .filter(e -> BEAN_STEP.equals(e.getStartupStep().getName()))
+                .sorted((a, b) -> selfTime.get(b.getStartupStep().getId())
+                        .compareTo(selfTime.get(a.getStartupStep().getId())))
+                .limit(reportBeans)
+                .map(e -> beanName(e.getStartupStep()) + "=" + selfTime.get(e.getStartupStep().getId()).toMillis() + "ms")
+                .collect(Collectors.joining(", "));
+
+        log.info("Ready in {} ms. Startup phases: {}", event.getTimeTaken().toMillis(), phases);
+        log.info("Slowest beans by self time: {}", beans);
+    }
+
+    private static String beanName(StartupStep step) {
+        for (StartupStep.Tag tag : step.getTags()) {
+            if ("beanName".equals(tag.getKey())) {
+                return tag.getValue();
+            }
+        }
+        return step.getName();
+    }
+}
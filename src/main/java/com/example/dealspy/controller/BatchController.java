@@ -0,0 +1,35 @@
+package com.example.dealspy.controller;
+
+import com.example.dealspy.auth.AuthUtils;
+import com.example.dealspy.common.ApiResponse;
+import com.example.dealspy.dto.BatchRequestDTO;
+import com.example.dealspy.dto.BatchResultDTO;
+import com.example.dealspy.service.BatchService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@CrossOrigin("*")
+public class BatchController {
+    @Autowired
+    private BatchService batchService;
+
+    @PostMapping("/batch")
+    public ResponseEntity<ApiResponse<List<BatchResultDTO>>> batch(
+            @RequestBody List<BatchRequestDTO> requests,
+            @RequestHeader(value = "X-FCM-TOKEN", required = false) String fcmToken) {
+        String uid = AuthUtils.getCurrentUserId();
+        Map<?, ?> details = SecurityContextHolder.getContext().getAuthentication().getDetails() instanceof Map<?, ?> map
+                ? map : Map.of();
+        BatchService.Caller caller = new BatchService.Caller(uid,
+                (String) details.get("email"), (String) details.get("name"), fcmToken);
+
+        List<BatchResultDTO> results = batchService.execute(caller, requests);
+        return ResponseEntity.ok(new ApiResponse<>(true, "Batch executed", results));
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.dealspy.controller;
+
+import com.example.dealspy.common.ApiResponse;
+import com.example.dealspy.dto.ProductSearchResultDTO;
+import com.example.dealspy.service.DealsFeedService;
+import com.example.dealspy.service.ProductSearchService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.Duration;
+import java.util.List;
+
+@RestController
+@CrossOrigin("*")
+@RequestMapping("/products")
+public class ProductController {
+
+    private static final int MAX_LIMIT = 50;
+    private static final Duration DEALS_MAX_AGE = Duration.ofSeconds(5);
+
+    @Autowired
+    private ProductSearchService productSearchService;
+
+    @Autowired
+    private DealsFeedService dealsFeedService;
+
+    // Pre-serialized snapshot: no DB work and no per-request serialization
+    @GetMapping(value = "/deals", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> deals(WebRequest request) {
+        DealsFeedService.Snapshot snapshot = dealsFeedService.snapshot();
+        if (request.checkNotModified(snapshot.etag())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(DEALS_MAX_AGE).cachePublic())
+                .eTag(snapshot.etag())
+                .body(snapshot.body());
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<ApiResponse<List<ProductSearchResultDTO>>> search(
+            @RequestParam("q") String query,
+            @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        if (query == null || query.trim().isEmpty()) {
+            return ResponseEntity.badRequest()
+                    .body(new ApiResponse<>(false, "Search query cannot be empty", null));
+        }
+
+        List<ProductSearchResultDTO> results =
+                productSearchService.search(query, Math.max(1, Math.min(limit, MAX_LIMIT)));
+        return ResponseEntity.ok(new ApiResponse<>(true, "Search results fetched successfully", results));
+    }
+}
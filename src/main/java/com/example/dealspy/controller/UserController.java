@@ -6,15 +6,23 @@ import com.example.dealspy.dto.SaveForLaterDTO;
 import com.example.dealspy.dto.UserDetailDTO;
 import com.example.dealspy.dto.WatchlistDTO;
 import com.example.dealspy.dto.WatchlistResponseDTO;
+import com.example.dealspy.service.IdempotencyService;
+import com.example.dealspy.service.PriceStreamService;
+import com.example.dealspy.service.ProductFieldsService;
 import com.example.dealspy.service.SaveForLaterService;
 import com.example.dealspy.service.UserService;
 import com.example.dealspy.service.WatchListService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @CrossOrigin("*")
@@ -25,6 +33,12 @@ public class UserController {
     private WatchListService watchListService;
     @Autowired
     private SaveForLaterService saveForLaterService;
+    @Autowired
+    private PriceStreamService priceStreamService;
+    @Autowired
+    private ProductFieldsService productFieldsService;
+    @Autowired
+    private IdempotencyService idempotencyService;
 
 
     @GetMapping("/profile")
@@ -43,6 +57,13 @@ public class UserController {
         }
     }
 
+    @GetMapping(value = "/profile", params = "fields")
+    public ApiResponse<Map<String, Object>> getUserProfileFields(@RequestParam String fields) {
+        // An unknown field is a 400 from GlobalExceptionHandler, as for the list endpoints
+        String uid = AuthUtils.getCurrentUserId();
+        return new ApiResponse<>(true, "Profile loaded successfully", productFieldsService.getUser(uid, fields));
+    }
+
     @DeleteMapping("/profile")
     public ApiResponse<String> deleteUserProfile() {
         try {
@@ -68,13 +89,37 @@ public class UserController {
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping(value = "/watchlist", params = "fields")
+    public ResponseEntity<ApiResponse<List<Map<String, Object>>>> getWatchListFields(@RequestParam String fields) {
+        String uid = AuthUtils.getCurrentUserId();
+        List<Map<String, Object>> list = productFieldsService.getUserWatchList(uid, fields);
+        return ResponseEntity.ok(new ApiResponse<>(true, "watchlist fetched successfully", list));
+    }
+
+
+    @GetMapping(value = "/watchlist/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamWatchlistPrices() {
+        String uid = AuthUtils.getCurrentUserId();
+        SseEmitter emitter = priceStreamService.connect(uid);
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "30")
+                    .build();
+        }
+        return ResponseEntity.ok(emitter);
+    }
+
 
     @PostMapping("/watchlist")
-    public ResponseEntity<ApiResponse<Void>> addToWatchList(@RequestBody WatchlistDTO watchlist) {
+    public ResponseEntity<ApiResponse<Void>> addToWatchList(
+            @RequestBody WatchlistDTO watchlist,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
         String uid = AuthUtils.getCurrentUserId();
-        watchListService.addToWatchList(uid, watchlist);
-        ApiResponse<Void> response = new ApiResponse<>(true, "Product added on watchlist successfully", null);
-        return ResponseEntity.ok(response);
+        return idempotencyService.execute(uid, idempotencyKey, "POST /watchlist", watchlist, () -> {
+            watchListService.addToWatchList(uid, watchlist);
+            ApiResponse<Void> response = new ApiResponse<>(true, "Product added on watchlist successfully", null);
+            return ResponseEntity.ok(response);
+        });
     }
 
     @DeleteMapping("/watchlist/{productName}")
@@ -133,18 +178,29 @@ public class UserController {
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping(value = "/saveforlater", params = "fields")
+    public ResponseEntity<ApiResponse<List<Map<String, Object>>>> getSaveForLaterFields(@RequestParam String fields) {
+        String uid = AuthUtils.getCurrentUserId();
+        List<Map<String, Object>> list = productFieldsService.getUserSaveForLater(uid, fields);
+        return ResponseEntity.ok(new ApiResponse<>(true, "Save For Later fetched successfully", list));
+    }
+
     @PostMapping("/saveforlater")
-    public ResponseEntity<ApiResponse<Void>> addToSaveForLater(@RequestBody SaveForLaterDTO dto) {
+    public ResponseEntity<ApiResponse<Void>> addToSaveForLater(
+            @RequestBody SaveForLaterDTO dto,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
         String uid = AuthUtils.getCurrentUserId();
 
-        String message = saveForLaterService.addToSaveForLater(uid, dto);
+        return idempotencyService.execute(uid, idempotencyKey, "POST /saveforlater", dto, () -> {
+            String message = saveForLaterService.addToSaveForLater(uid, dto);
 
-        ApiResponse<Void> response = new ApiResponse<>(
-                true,
-                message,
-                null
-        );
-        return ResponseEntity.ok(response);
+            ApiResponse<Void> response = new ApiResponse<>(
+                    true,
+                    message,
+                    null
+            );
+            return ResponseEntity.ok(response);
+        });
     }
 
     @DeleteMapping("/saveforlater/{productName}")
@@ -0,0 +1,32 @@
+package com.example.dealspy.db;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read replicas for read-only transactions. Without URLs everything runs on the primary; username
+ * and password default to the primary's.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "dealspy.replicas")
+public class ReplicaProperties {
+
+    private List<String> urls = new ArrayList<>();
+    private String username;
+    private String password;
+    private int poolSize = 10;
+
+    /** How long a user's reads stay on the primary after they wrote. */
+    private long readYourWritesMs = 5000;
+    /**
+     * Replicas further behind than this (or unreachable) get no reads until they catch up. At most
+     * readYourWritesMs, or a user back on a replica could read from before their own write.
+     */
+    private long maxLagMs = 5000;
+    private long lagCheckIntervalMs = 5000;
+}
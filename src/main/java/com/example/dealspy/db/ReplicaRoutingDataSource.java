@@ -0,0 +1,240 @@
+package com.example.dealspy.db;
+
+import com.example.dealspy.auth.AuthUtils;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends the read-only transactions of authenticated requests to a read replica (round robin) and
+ * everything else to the primary. Scheduled jobs and other background work stay on the primary:
+ * they read what they are about to write, or act on prices FastAPI has just written. A user who
+ * wrote within the read-your-writes window reads from the primary too; the window is per node.
+ * Replica lag is checked in the background, and a replica that is too far behind, or whose pool
+ * cannot hand out a connection, gets no reads until a later check finds it caught up.
+ * <p>
+ * The routing key depends on the transaction's read-only flag, which Spring sets after the
+ * transaction manager has asked for a connection, so this must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    static final String PRIMARY = "primary";
+
+    // Zero on a standby that has replayed everything it received (an idle primary writes nothing,
+    // so the last replay time alone would grow without bound) and on a non-standby
+    // Caught up only counts while the WAL receiver is streaming: a standby that lost the primary has
+    // replayed everything it received, which says nothing about what it missed. Otherwise the age of
+    // the last replayed transaction, NULL (unusable) if there is none
+    private static final String LAG_SQL = """
+            SELECT CASE WHEN NOT pg_is_in_recovery() THEN 0
+                        WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn()
+                             AND EXISTS (SELECT 1 FROM pg_stat_wal_receiver WHERE status = 'streaming') THEN 0
+                        ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000 END""";
+
+    private final HikariDataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final long readYourWritesNanos;
+    private final long maxLagMs;
+    private final MeterRegistry meterRegistry;
+
+    // uid -> System.nanoTime() at which that user's reads may go back to a replica
+    private final Map<String, Long> recentWriters = new ConcurrentHashMap<>();
+    private final AtomicInteger next = new AtomicInteger();
+
+    private static final class Replica {
+        private final String name;
+        private final HikariDataSource pool;
+        // NaN until the first check, infinite while unreachable
+        private volatile double lagMs = Double.NaN;
+
+        private Replica(String name, HikariDataSource pool) {
+            this.name = name;
+            this.pool = pool;
+        }
+    }
+
+    public ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicaPools,
+                                    ReplicaProperties properties, MeterRegistry meterRegistry) {
+        if (properties.getMaxLagMs() > properties.getReadYourWritesMs()) {
+            // A replica allowed to lag longer than the window could still miss the user's write after it
+            throw new IllegalStateException("dealspy.replicas.max-lag-ms (" + properties.getMaxLagMs()
+                    + ") must not exceed dealspy.replicas.read-your-writes-ms (" + properties.getReadYourWritesMs() + ")");
+        }
+        this.primary = primary;
+        this.readYourWritesNanos = TimeUnit.MILLISECONDS.toNanos(properties.getReadYourWritesMs());
+        this.maxLagMs = properties.getMaxLagMs();
+        this.meterRegistry = meterRegistry;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (HikariDataSource pool : replicaPools) {
+            Replica replica = new Replica(pool.getPoolName(), pool);
+            replicas.add(replica);
+            targets.put(replica.name, pool);
+            Gauge.builder("dealspy.db.replica.lag", replica, r -> r.lagMs / 1000)
+                    .tag("replica", replica.name)
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    /** Primary first, then the replicas, by pool name. */
+    public Map<String, HikariDataSource> pools() {
+        Map<String, HikariDataSource> pools = new LinkedHashMap<>();
+        pools.put(PRIMARY, primary);
+        replicas.forEach(replica -> pools.put(replica.name, replica.pool));
+        return pools;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String uid = AuthUtils.findCurrentUserId();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (uid != null) {
+                recordWrite(uid);
+            }
+            return route(PRIMARY, "read_write");
+        }
+        if (uid == null) {
+            return route(PRIMARY, "background");
+        }
+        if (replicas.isEmpty()) {
+            return route(PRIMARY, "no_replica");
+        }
+        if (wroteRecently(uid)) {
+            return route(PRIMARY, "read_your_writes");
+        }
+        Replica replica = nextReplica();
+        return replica == null ? route(PRIMARY, "replica_lag") : route(replica.name, "read_only");
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        DataSource target = determineTargetDataSource();
+        try {
+            return target.getConnection();
+        } catch (SQLException e) {
+            Replica replica = replicaFor(target);
+            if (replica == null) {
+                throw e;
+            }
+            // Out of rotation until the lag check reaches it again
+            replica.lagMs = Double.POSITIVE_INFINITY;
+            log.warn("Replica {} unavailable, reading from the primary: {}", replica.name, e.getMessage());
+            route(PRIMARY, "replica_unavailable");
+            return primary.getConnection();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${dealspy.replicas.lag-check-interval-ms:5000}")
+    public void checkLag() {
+        long now = System.nanoTime();
+        recentWriters.values().removeIf(until -> now - until >= 0);
+
+        for (Replica replica : replicas) {
+            double lagMs;
+            try (Connection connection = replica.pool.getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.setQueryTimeout(5);
+                try (ResultSet rs = statement.executeQuery(LAG_SQL)) {
+                    rs.next();
+                    lagMs = rs.getDouble(1);
+                    if (rs.wasNull()) {
+                        lagMs = Double.POSITIVE_INFINITY;
+                    }
+                }
+            } catch (SQLException e) {
+                lagMs = Double.POSITIVE_INFINITY;
+            }
+
+            double previous = replica.lagMs;
+            replica.lagMs = lagMs;
+            boolean usable = lagMs <= maxLagMs;
+            if (usable && !(previous <= maxLagMs)) {
+                log.info("Replica {} is serving reads (lag {} ms)", replica.name, Math.round(lagMs));
+            } else if (!usable && (previous <= maxLagMs || Double.isNaN(previous))) {
+                log.warn("Replica {} taken out of rotation, lag {} ms", replica.name, lagMs);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(replica -> replica.pool.close());
+    }
+
+    private void recordWrite(String uid) {
+        recentWriters.put(uid, System.nanoTime() + readYourWritesNanos);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // The window counts from the commit, not from the first statement
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    recentWriters.put(uid, System.nanoTime() + readYourWritesNanos);
+                }
+            });
+        }
+    }
+
+    private boolean wroteRecently(String uid) {
+        Long until = recentWriters.get(uid);
+        if (until == null) {
+            return false;
+        }
+        if (System.nanoTime() - until < 0) {
+            return true;
+        }
+        recentWriters.remove(uid, until);
+        return false;
+    }
+
+    private Replica nextReplica() {
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (replica.lagMs <= maxLagMs) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    private Replica replicaFor(DataSource target) {
+        for (Replica replica : replicas) {
+            if (replica.pool == target) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    private String route(String target, String reason) {
+        meterRegistry.counter("dealspy.db.routing",
+                "target", PRIMARY.equals(target) ? PRIMARY : "replica", "reason", reason).increment();
+        return target;
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.dealspy.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchRequestDTO {
+    private String id;
+    private String method;
+    // Path and query of the sub-request, e.g. "/watchlist?fields=productName,price"
+    private String path;
+}
@@ -0,0 +1,15 @@
+package com.example.dealspy.dto;
+
+import com.example.dealspy.common.ApiResponse;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchResultDTO {
+    private String id;
+    private int status;
+    private ApiResponse<?> body;
+}
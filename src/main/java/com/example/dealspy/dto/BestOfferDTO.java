@@ -0,0 +1,15 @@
+package com.example.dealspy.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BestOfferDTO {
+    private String productName;
+    private String platform;
+    private String deepLink;
+    private Double price;
+}
@@ -0,0 +1,14 @@
+package com.example.dealspy.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceRefreshRequestDTO {
+    private List<Integer> pids;
+}
@@ -0,0 +1,17 @@
+package com.example.dealspy.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceUpdateDTO {
+    private String productName;
+    private String platform;
+    private Double price;
+    private Double previousPrice;
+    private Boolean isPriceDropped;
+    private Long updatedAt;
+}
@@ -0,0 +1,17 @@
+package com.example.dealspy.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSearchResultDTO {
+    private String productName;
+    private String brand;
+    private String platform;
+    private String imageUrl;
+    private String deepLink;
+    private Double price;
+}
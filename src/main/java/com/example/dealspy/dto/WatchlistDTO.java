@@ -15,4 +15,5 @@ public class WatchlistDTO {
     private String imageUrl;
     private String deepLink;
     private Double price;         // must be 'price'
+    private BestOfferDTO bestOffer; // read-only, ignored when adding to the watchlist
 }
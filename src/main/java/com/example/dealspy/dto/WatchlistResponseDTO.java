@@ -14,4 +14,5 @@ public class WatchlistResponseDTO {
     private String deepLink;
     private Double price;         // change from currentPrice
     private Double lastKnownPrice;
+    private BestOfferDTO bestOffer; // cheapest listing of the same item across platforms
 }
@@ -0,0 +1,183 @@
+package com.example.dealspy.fastapi;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.channel.ChannelOption;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.reactive.ClientHttpRequest;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.client.HttpClientRequest;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.Semaphore;
+
+/**
+ * The one client for the FastAPI service. All calls share a bounded connection pool with connect,
+ * read and response timeouts, so a hung service costs at most one timeout per call and never more
+ * than {@code max-connections} sockets. On top of that a bulkhead caps the calls in flight and a
+ * circuit breaker stops calling a service that keeps failing; both reject without blocking, and
+ * the caller falls back (skips the refresh, the products stay due). Pool gauges are published as
+ * {@code reactor.netty.connection.provider.*{name=fastapi}}, the rest as {@code dealspy.fastapi.*}.
+ */
+@Component
+@Slf4j
+public class FastApiClient {
+
+    private final ConnectionProvider connections;
+    private final WebClient client;
+    private final Semaphore bulkhead;
+    private final int maxConcurrentCalls;
+    private final CircuitBreaker breaker;
+    private final Duration readTimeout;
+    private final Duration responseTimeout;
+    private final MeterRegistry meterRegistry;
+
+    public FastApiClient(WebClient.Builder webClientBuilder, FastApiProperties properties, MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        readTimeout = Duration.ofMillis(properties.getReadTimeoutMs());
+        responseTimeout = Duration.ofMillis(properties.getResponseTimeoutMs());
+
+        connections = ConnectionProvider.builder("fastapi")
+                .maxConnections(properties.getMaxConnections())
+                .pendingAcquireMaxCount(properties.getPendingAcquireMax())
+                .pendingAcquireTimeout(Duration.ofMillis(properties.getConnectTimeoutMs()))
+                .maxIdleTime(Duration.ofMillis(properties.getMaxIdleTimeMs()))
+                .evictInBackground(Duration.ofMillis(properties.getMaxIdleTimeMs()))
+                .metrics(true)
+                .build();
+        HttpClient httpClient = HttpClient.create(connections)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) properties.getConnectTimeoutMs())
+                .responseTimeout(readTimeout);
+        // Boot's builder keeps the http.client.requests observation
+        client = webClientBuilder
+                .baseUrl(properties.getBaseUrl())
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+
+        maxConcurrentCalls = properties.getMaxConcurrentCalls();
+        bulkhead = new Semaphore(maxConcurrentCalls);
+        FastApiProperties.Breaker b = properties.getBreaker();
+        breaker = new CircuitBreaker(b.getWindowSize(), b.getMinimumCalls(), b.getFailureRateThreshold(),
+                Duration.ofMillis(b.getOpenMs()).toNanos());
+
+        Gauge.builder("dealspy.fastapi.bulkhead.available", bulkhead, Semaphore::availablePermits)
+                .register(meterRegistry);
+        for (CircuitBreaker.State state : CircuitBreaker.State.values()) {
+            Gauge.builder("dealspy.fastapi.circuit.state", breaker, cb -> cb.state() == state ? 1 : 0)
+                    .tag("state", state.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        connections.disposeLater().block(Duration.ofSeconds(5));
+    }
+
+    public boolean post(String uri, Object body) {
+        return post(uri, body, responseTimeout);
+    }
+
+    /**
+     * POSTs {@code body} (may be null) and waits at most {@code timeout} for a 2xx. Returns false
+     * when the call failed or was not made (bulkhead full, circuit open); the reason is logged
+     * and counted here, so callers only decide what to do instead.
+     */
+    public boolean post(String uri, Object body, Duration timeout) {
+        if (!bulkhead.tryAcquire()) {
+            count("bulkhead_full");
+            log.warn("FastAPI call to {} rejected: {} calls already in flight", uri, maxConcurrentCalls);
+            return false;
+        }
+        try {
+            if (!breaker.tryAcquirePermission()) {
+                count("circuit_open");
+                log.warn("FastAPI call to {} skipped: circuit breaker is {}", uri, breaker.state());
+                return false;
+            }
+            return call(uri, body, timeout);
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    /**
+     * GET for the health probe: same pool and timeouts, but past the bulkhead and breaker so the
+     * probe keeps showing whether the service is actually reachable.
+     */
+    public HttpStatusCode status(String uri, Duration timeout) {
+        return client.get()
+                .uri(uri)
+                .httpRequest(request -> extendReadTimeout(request, timeout))
+                .exchangeToMono(response -> response.releaseBody().thenReturn(response.statusCode()))
+                .timeout(timeout, Mono.error(() -> timedOut(timeout)))
+                .block();
+    }
+
+    public CircuitBreaker.State circuitState() {
+        return breaker.state();
+    }
+
+    private boolean call(String uri, Object body, Duration timeout) {
+        CircuitBreaker.State before = breaker.state();
+        try {
+            WebClient.RequestBodySpec request = client.post()
+                    .uri(uri)
+                    .httpRequest(r -> extendReadTimeout(r, timeout));
+            (body == null ? request : request.bodyValue(body))
+                    .retrieve()
+                    .toBodilessEntity()
+                    .timeout(timeout, Mono.error(() -> timedOut(timeout)))
+                    .block();
+            breaker.onSuccess();
+            count("success");
+            return true;
+        } catch (WebClientResponseException e) {
+            // A 4xx is our request's fault, the service itself answered
+            if (e.getStatusCode().is4xxClientError()) {
+                breaker.onSuccess();
+            } else {
+                breaker.onFailure();
+            }
+            count("failure");
+            log.error("FastAPI call to {} failed: {} {}", uri, e.getStatusCode(), e.getResponseBodyAsString());
+            return false;
+        } catch (Exception e) {
+            breaker.onFailure();
+            count("failure");
+            log.error("FastAPI call to {} failed: {}", uri, e.getMessage());
+            return false;
+        } finally {
+            CircuitBreaker.State after = breaker.state();
+            if (after != before) {
+                log.warn("FastAPI circuit breaker {} -> {}", before, after);
+            }
+        }
+    }
+
+    // The per-read limit must not cut off a call that is allowed to take longer (the full update
+    // answers only when it is done)
+    private void extendReadTimeout(ClientHttpRequest request, Duration timeout) {
+        if (timeout.compareTo(readTimeout) > 0) {
+            HttpClientRequest nativeRequest = request.getNativeRequest();
+            nativeRequest.responseTimeout(timeout);
+        }
+    }
+
+    private void count(String outcome) {
+        meterRegistry.counter("dealspy.fastapi.calls", "outcome", outcome).increment();
+    }
+
+    private static IllegalStateException timedOut(Duration timeout) {
+        return new IllegalStateException("timed out after " + timeout.toMillis() + " ms");
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.dealspy.fastapi;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * FastAPI client settings: the shared connection pool, call timeouts, the bulkhead (calls in
+ * flight at once) and the circuit breaker.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "dealspy.fastapi")
+public class FastApiProperties {
+
+    private String baseUrl;
+
+    private int maxConnections = 8;
+    private int pendingAcquireMax = 16;
+    private long maxIdleTimeMs = 30000;
+
+    private long connectTimeoutMs = 2000;
+    /** Longest silence between two reads of a response. */
+    private long readTimeoutMs = 30000;
+    /** Default deadline for a whole call, from acquiring a connection to the last byte. */
+    private long responseTimeoutMs = 30000;
+
+    private int maxConcurrentCalls = 4;
+
+    private Breaker breaker = new Breaker();
+
+    @Data
+    public static class Breaker {
+        private int windowSize = 20;
+        private int minimumCalls = 5;
+        private double failureRateThreshold = 0.5;
+        private long openMs = 60000;
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.dealspy.health;
+
+import com.example.dealspy.health.DependencyProber.Dependency;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Health contributors "postgres", "firebase" and "fastapi", answered from the prober's cached
+ * results with probe latency and age as details. They replace Boot's "db" indicator, which ran a
+ * query per health request.
+ */
+@Configuration
+public class DependencyHealthConfig {
+
+    @Bean
+    public HealthIndicator postgresHealthIndicator(DependencyProber prober) {
+        return () -> prober.health(Dependency.POSTGRES);
+    }
+
+    @Bean
+    public HealthIndicator firebaseHealthIndicator(DependencyProber prober) {
+        return () -> prober.health(Dependency.FIREBASE);
+    }
+
+    @Bean
+    public HealthIndicator fastapiHealthIndicator(DependencyProber prober) {
+        return () -> prober.health(Dependency.FASTAPI);
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.dealspy.health;
+
+import com.example.dealspy.fastapi.FastApiClient;
+import com.google.api.core.ApiFuture;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.ListUsersPage;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Checks Postgres, Firebase and the FastAPI service in the background and keeps the last result
+ * of each, so health requests (load-balancer probes, /actuator/health) are a map read instead of
+ * a remote call. Every probe runs on its own thread with a timeout; a probe that is still running
+ * is not started again, and a result older than a few intervals is reported as stale.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DependencyProber {
+
+    public enum Dependency {
+        POSTGRES, FIREBASE, FASTAPI
+    }
+
+    public record Probe(Status status, long latencyMs, Instant checkedAt, String error) {
+    }
+
+    private final DataSource dataSource;
+    private final ObjectProvider<FirebaseAuth> firebaseAuth;
+    private final FastApiClient fastApiClient;
+
+    // Any response below 500 counts as reachable, so this need not be a dedicated health route
+    @Value("${dealspy.health.fastapi-path:/}")
+    private String fastApiPath;
+
+    @Value("${dealspy.health.probe-interval-ms:30000}")
+    private long intervalMs;
+
+    @Value("${dealspy.health.probe-timeout-ms:5000}")
+    private long timeoutMs;
+
+    private final Map<Dependency, Probe> results = new ConcurrentHashMap<>();
+    private final Map<Dependency, AtomicBoolean> running = new EnumMap<>(Dependency.class);
+
+    private ExecutorService probes;
+
+    @PostConstruct
+    void init() {
+        for (Dependency dependency : Dependency.values()) {
+            running.put(dependency, new AtomicBoolean());
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        probes = Executors.newFixedThreadPool(Dependency.values().length, runnable -> {
+            Thread thread = new Thread(runnable, "health-probe-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        probes.shutdownNow();
+    }
+
+    @Scheduled(fixedDelayString = "${dealspy.health.probe-interval-ms:30000}")
+    public void probeAll() {
+        for (Dependency dependency : Dependency.values()) {
+            AtomicBoolean inFlight = running.get(dependency);
+            if (!inFlight.compareAndSet(false, true)) {
+                continue;
+            }
+            probes.execute(() -> {
+                try {
+                    record(dependency, probe(dependency));
+                } finally {
+                    inFlight.set(false);
+                }
+            });
+        }
+    }
+
+    /** Last result, or null before the first probe has finished. */
+    public Probe last(Dependency dependency) {
+        return results.get(dependency);
+    }
+
+    /** Whether the last result is UP and recent enough to trust. */
+    public boolean isUp(Dependency dependency) {
+        Probe probe = results.get(dependency);
+        return probe != null && Status.UP.equals(probe.status()) && !isStale(probe);
+    }
+
+    public Health health(Dependency dependency) {
+        Probe probe = results.get(dependency);
+        if (probe == null) {
+            return Health.unknown().withDetail("reason", "not probed yet").build();
+        }
+        long ageMs = Duration.between(probe.checkedAt(), Instant.now()).toMillis();
+        Health.Builder health = isStale(probe)
+                ? Health.down().withDetail("reason", "no probe result for " + ageMs + " ms")
+                : Health.status(probe.status());
+        health.withDetail("latencyMs", probe.latencyMs())
+                .withDetail("checkedAt", probe.checkedAt().toString())
+                .withDetail("ageMs", ageMs);
+        if (probe.error() != null) {
+            health.withDetail("error", probe.error());
+        }
+        return health.build();
+    }
+
+    private boolean isStale(Probe probe) {
+        return probe.checkedAt().isBefore(Instant.now().minusMillis(3 * intervalMs + timeoutMs));
+    }
+
+    private Probe probe(Dependency dependency) {
+        long start = System.nanoTime();
+        try {
+            switch (dependency) {
+                case POSTGRES -> probePostgres();
+                case FIREBASE -> probeFirebase();
+                case FASTAPI -> probeFastApi();
+            }
+            return new Probe(Status.UP, elapsedMs(start), Instant.now(), null);
+        } catch (TimeoutException e) {
+            return new Probe(Status.DOWN, elapsedMs(start), Instant.now(), "timed out after " + timeoutMs + " ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Probe(Status.DOWN, elapsedMs(start), Instant.now(), "interrupted");
+        } catch (Exception e) {
+            return new Probe(Status.DOWN, elapsedMs(start), Instant.now(), String.valueOf(e.getMessage()));
+        }
+    }
+
+    private void probePostgres() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            if (!connection.isValid((int) Math.max(1, timeoutMs / 1000))) {
+                throw new SQLException("connection is not valid");
+            }
+        }
+    }
+
+    private void probeFirebase() throws Exception {
+        // The Admin API call the old /auth/health made on every request
+        ApiFuture<ListUsersPage> page = firebaseAuth.getObject().listUsersAsync(null, 1);
+        try {
+            page.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            page.cancel(true);
+            throw e;
+        }
+    }
+
+    private void probeFastApi() {
+        HttpStatusCode status = fastApiClient.status(fastApiPath, Duration.ofMillis(timeoutMs));
+        if (status == null || status.is5xxServerError()) {
+            throw new IllegalStateException("FastAPI responded " + status);
+        }
+    }
+
+    private void record(Dependency dependency, Probe probe) {
+        Probe previous = results.put(dependency, probe);
+        boolean wasUp = previous != null && Status.UP.equals(previous.status());
+        boolean isUp = Status.UP.equals(probe.status());
+        if (previous == null || wasUp != isUp) {
+            if (isUp) {
+                log.info("{} is up ({} ms)", dependency, probe.latencyMs());
+            } else {
+                log.warn("{} is down: {}", dependency, probe.error());
+            }
+        }
+    }
+
+    private static long elapsedMs(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+}
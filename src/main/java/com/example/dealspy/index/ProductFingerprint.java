@@ -0,0 +1,146 @@
+package com.example.dealspy.index;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Title fingerprint used to find the same item listed on different platforms. Titles are reduced
+ * to character 3-gram shingles within each token, so word order, punctuation and "128 GB" vs
+ * "128GB" barely matter. A MinHash signature over the shingles is cut into LSH bands; two titles
+ * with Jaccard similarity s share at least one band bucket with probability 1 - (1 - s^ROWS)^BANDS,
+ * about 0.94 at s = 0.7 and 0.05 at s = 0.3.
+ */
+public final class ProductFingerprint {
+
+    public static final int BANDS = 10;
+    public static final int ROWS = 4;
+
+    private static final double MIN_SIMILARITY = 0.6;
+    private static final int SHINGLE_LENGTH = 3;
+    private static final Pattern DIGITS = Pattern.compile("\\d+");
+
+    // Fixed, not random: bucket keys are persisted and must be identical across restarts
+    private static final long[] SEEDS = new long[BANDS * ROWS];
+
+    static {
+        for (int i = 0; i < SEEDS.length; i++) {
+            SEEDS[i] = mix(0x9E3779B97F4A7C15L * (i + 1));
+        }
+    }
+
+    private final String brand;
+    private final String platform;
+    private final Set<String> shingles;
+    private final Set<String> modelNumbers;
+
+    private ProductFingerprint(String brand, String platform, Set<String> shingles, Set<String> modelNumbers) {
+        this.brand = brand;
+        this.platform = platform;
+        this.shingles = shingles;
+        this.modelNumbers = modelNumbers;
+    }
+
+    public static ProductFingerprint of(String name, String brand, String platform) {
+        Set<String> shingles = new HashSet<>();
+        for (String token : ProductSearchIndex.tokenize(name)) {
+            if (token.length() <= SHINGLE_LENGTH) {
+                shingles.add(token);
+            } else {
+                for (int i = 0; i + SHINGLE_LENGTH <= token.length(); i++) {
+                    shingles.add(token.substring(i, i + SHINGLE_LENGTH));
+                }
+            }
+        }
+
+        Set<String> modelNumbers = new HashSet<>();
+        Matcher digits = DIGITS.matcher(name == null ? "" : name);
+        while (digits.find()) {
+            modelNumbers.add(digits.group());
+        }
+        return new ProductFingerprint(normalize(brand), normalize(platform), shingles, modelNumbers);
+    }
+
+    /** One bucket key per band; an empty title has no buckets and never matches anything. */
+    public long[] bandBuckets() {
+        if (shingles.isEmpty()) {
+            return new long[0];
+        }
+
+        long[] minima = new long[SEEDS.length];
+        Arrays.fill(minima, Long.MAX_VALUE);
+        for (String shingle : shingles) {
+            long base = hash(shingle);
+            for (int i = 0; i < SEEDS.length; i++) {
+                minima[i] = Math.min(minima[i], mix(base ^ SEEDS[i]));
+            }
+        }
+
+        long[] buckets = new long[BANDS];
+        for (int band = 0; band < BANDS; band++) {
+            long key = band;
+            for (int row = 0; row < ROWS; row++) {
+                key = mix(key * 31 + minima[band * ROWS + row]);
+            }
+            buckets[band] = key;
+        }
+        return buckets;
+    }
+
+    /**
+     * Same item on another platform: similar titles, the same numbers (storage, model, size
+     * variants share almost every shingle otherwise) and no conflicting brand.
+     */
+    public boolean matches(ProductFingerprint other) {
+        if (platform == null || other.platform == null || platform.equals(other.platform)) {
+            return false;
+        }
+        if (brand != null && other.brand != null && !brand.equals(other.brand)) {
+            return false;
+        }
+        return modelNumbers.equals(other.modelNumbers) && similarity(other) >= MIN_SIMILARITY;
+    }
+
+    double similarity(ProductFingerprint other) {
+        if (shingles.isEmpty() || other.shingles.isEmpty()) {
+            return 0;
+        }
+        int common = 0;
+        for (String shingle : shingles) {
+            if (other.shingles.contains(shingle)) {
+                common++;
+            }
+        }
+        return (double) common / (shingles.size() + other.shingles.size() - common);
+    }
+
+    private static String normalize(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // 64-bit FNV-1a; String.hashCode is too narrow for signatures over millions of titles
+    private static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    // MurmurHash3 fmix64
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb93fe1a85ec3L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
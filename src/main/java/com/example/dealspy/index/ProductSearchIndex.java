@@ -0,0 +1,366 @@
+package com.example.dealspy.index;
+
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntUnaryOperator;
+import java.util.regex.Pattern;
+
+/**
+ * Prefix index over product name and brand tokens. Each distinct token, and each of its first few
+ * prefixes, keeps a bitmap of the pids containing it; every query token is treated as a prefix and
+ * the per-token bitmaps are intersected. Every candidate is ranked by popularity and text match
+ * quality into a bounded top-k heap; the text checks are skipped for candidates whose popularity
+ * alone cannot reach the heap.
+ * <p>
+ * A single token of up to three characters matches too much of the catalog to rank per request,
+ * so its best few hundred hits are ranked once and then patched as products are written and their
+ * popularity changes; popularity is read through the function given at construction and
+ * {@link #popularityChanged} must be called whenever it changes.
+ */
+public class ProductSearchIndex {
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final int SHORT_PREFIX_LENGTH = 3;
+    // Most a title can add to a candidate's popularity: a name prefix match plus one per query token
+    private static final double NAME_PREFIX_BONUS = 3;
+    // Kept per short prefix: the largest page is 50, the rest absorbs hits that drop out
+    private static final int SHORT_PREFIX_TOP_SIZE = 200;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, RoaringBitmap> postings = new TreeMap<>();
+    private final Map<String, RoaringBitmap> prefixes = new HashMap<>();
+    // Indexed by pid: identity pids are dense, and ranking touches a lot of scattered documents
+    private Document[] documents = new Document[1_024];
+    private int documentCount;
+    private final IntUnaryOperator popularity;
+    // Filled by searches under the read lock, patched by writes under the write lock
+    private final Map<String, TopHits> shortPrefixTops = new ConcurrentHashMap<>();
+
+    public ProductSearchIndex(IntUnaryOperator popularity) {
+        this.popularity = popularity;
+    }
+
+    public record Entry(int pid, String name, String brand, String platform,
+                        String imageUrl, String deepLink, Double price) {
+    }
+
+    private record Document(Entry entry, String normalizedName, Set<String> tokens) {
+    }
+
+    private record Hit(Entry entry, double score) {
+    }
+
+    public void upsert(Entry entry) {
+        put(entry, true);
+    }
+
+    public void insertIfAbsent(Entry entry) {
+        put(entry, false);
+    }
+
+    public void remove(int pid) {
+        lock.writeLock().lock();
+        try {
+            Document old = document(pid);
+            if (old != null) {
+                documents[pid] = null;
+                documentCount--;
+                unindex(pid, old.tokens());
+                shortPrefixes(old.tokens()).forEach(prefix -> updateTop(prefix, pid, null));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void popularityChanged(int pid) {
+        lock.writeLock().lock();
+        try {
+            Document doc = document(pid);
+            if (doc != null) {
+                shortPrefixes(doc.tokens()).forEach(prefix -> updateTop(prefix, pid, doc));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<Entry> search(String query, int limit) {
+        List<String> queryTokens = new ArrayList<>(tokenize(query));
+        if (queryTokens.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        String normalizedQuery = String.join(" ", queryTokens);
+
+        lock.readLock().lock();
+        try {
+            if (queryTokens.size() == 1 && normalizedQuery.length() <= SHORT_PREFIX_LENGTH
+                    && limit <= SHORT_PREFIX_TOP_SIZE) {
+                return shortPrefixTop(normalizedQuery, limit);
+            }
+
+            List<RoaringBitmap> perToken = new ArrayList<>(queryTokens.size());
+            for (String token : queryTokens) {
+                RoaringBitmap matches = matching(token);
+                if (matches.isEmpty()) {
+                    return List.of();
+                }
+                perToken.add(matches);
+            }
+            RoaringBitmap candidates = perToken.size() == 1
+                    ? perToken.get(0)
+                    : FastAggregation.and(perToken.iterator());
+
+            return rank(candidates, queryTokens, normalizedQuery, limit).stream().map(Hit::entry).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static Set<String> tokenize(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private void put(Entry entry, boolean replace) {
+        Set<String> tokens = tokenize(entry.name());
+        tokens.addAll(tokenize(entry.brand()));
+        Document doc = new Document(entry, String.join(" ", tokenize(entry.name())), tokens);
+
+        lock.writeLock().lock();
+        try {
+            Document old = document(entry.pid());
+            if (old != null) {
+                if (!replace) {
+                    return;
+                }
+                unindex(entry.pid(), old.tokens());
+            } else {
+                documentCount++;
+            }
+            if (entry.pid() >= documents.length) {
+                documents = Arrays.copyOf(documents, Math.max(entry.pid() + 1, documents.length * 2));
+            }
+            documents[entry.pid()] = doc;
+            index(entry.pid(), tokens);
+            if (!shortPrefixTops.isEmpty()) {
+                Set<String> newPrefixes = shortPrefixes(tokens);
+                if (old != null) {
+                    shortPrefixes(old.tokens()).stream().filter(prefix -> !newPrefixes.contains(prefix))
+                            .forEach(prefix -> updateTop(prefix, entry.pid(), null));
+                }
+                newPrefixes.forEach(prefix -> updateTop(prefix, entry.pid(), doc));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private List<Entry> shortPrefixTop(String prefix, int limit) {
+        RoaringBitmap candidates = prefixes.get(prefix);
+        if (candidates == null) {
+            return List.of();
+        }
+        TopHits top = shortPrefixTops.get(prefix);
+        if (top == null || !top.covers(limit)) {
+            // Concurrent searches may both rank; either result is right, since no write can run meanwhile
+            List<Hit> ranked = rank(candidates, List.of(prefix), prefix, SHORT_PREFIX_TOP_SIZE);
+            top = new TopHits(ranked, ranked.size() < candidates.getLongCardinality()
+                    ? ranked.get(ranked.size() - 1).score() : Double.NEGATIVE_INFINITY);
+            shortPrefixTops.put(prefix, top);
+        }
+        return top.first(limit);
+    }
+
+    // Best first
+    private List<Hit> rank(RoaringBitmap candidates, List<String> queryTokens, String normalizedQuery, int limit) {
+        PriorityQueue<Hit> best = new PriorityQueue<>(Comparator.comparingDouble(Hit::score));
+        double maxTextScore = NAME_PREFIX_BONUS + queryTokens.size();
+        PeekableIntIterator it = candidates.getIntIterator();
+        while (it.hasNext()) {
+            int pid = it.next();
+            Document doc = document(pid);
+            if (doc == null) {
+                continue;
+            }
+            double popularityScore = Math.log1p(popularity.applyAsInt(pid));
+            if (best.size() == limit && popularityScore + maxTextScore <= best.peek().score()) {
+                continue;
+            }
+            Hit hit = new Hit(doc.entry(), popularityScore + textScore(doc, queryTokens, normalizedQuery));
+            if (best.size() < limit) {
+                best.add(hit);
+            } else if (hit.score() > best.peek().score()) {
+                best.poll();
+                best.add(hit);
+            }
+        }
+
+        List<Hit> ordered = new ArrayList<>(best);
+        ordered.sort(Comparator.comparingDouble(Hit::score).reversed());
+        return ordered;
+    }
+
+    // Called with the write lock held; a null doc means the pid no longer matches the prefix
+    private void updateTop(String prefix, int pid, Document doc) {
+        TopHits top = shortPrefixTops.get(prefix);
+        if (top != null) {
+            top.update(pid, doc == null ? null : new Hit(doc.entry(),
+                    Math.log1p(popularity.applyAsInt(pid)) + textScore(doc, List.of(prefix), prefix)));
+        }
+    }
+
+    private Document document(int pid) {
+        return pid >= 0 && pid < documents.length ? documents[pid] : null;
+    }
+
+    private void index(int pid, Set<String> tokens) {
+        for (String token : tokens) {
+            postings.computeIfAbsent(token, key -> new RoaringBitmap()).add(pid);
+            for (String prefix : shortPrefixes(token)) {
+                prefixes.computeIfAbsent(prefix, key -> new RoaringBitmap()).add(pid);
+            }
+        }
+    }
+
+    private void unindex(int pid, Set<String> tokens) {
+        for (String token : tokens) {
+            removeFrom(postings, token, pid);
+            for (String prefix : shortPrefixes(token)) {
+                removeFrom(prefixes, prefix, pid);
+            }
+        }
+    }
+
+    private static void removeFrom(Map<String, RoaringBitmap> map, String key, int pid) {
+        RoaringBitmap pids = map.get(key);
+        if (pids != null) {
+            pids.remove(pid);
+            if (pids.isEmpty()) {
+                map.remove(key);
+            }
+        }
+    }
+
+    private static Set<String> shortPrefixes(Set<String> tokens) {
+        Set<String> result = new LinkedHashSet<>();
+        tokens.forEach(token -> result.addAll(shortPrefixes(token)));
+        return result;
+    }
+
+    private static Set<String> shortPrefixes(String token) {
+        Set<String> result = new LinkedHashSet<>();
+        for (int length = 1; length <= Math.min(token.length(), SHORT_PREFIX_LENGTH); length++) {
+            result.add(token.substring(0, length));
+        }
+        return result;
+    }
+
+    private RoaringBitmap matching(String prefix) {
+        // Short prefixes are what autocomplete sends most and what expand to the most terms, so they
+        // have their own postings; longer ones only cover a handful of dictionary terms
+        if (prefix.length() <= SHORT_PREFIX_LENGTH) {
+            RoaringBitmap pids = prefixes.get(prefix);
+            return pids == null ? new RoaringBitmap() : pids;
+        }
+
+        List<RoaringBitmap> expansions =
+                new ArrayList<>(postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values());
+        return expansions.size() == 1 ? expansions.get(0) : FastAggregation.or(expansions.iterator());
+    }
+
+    private static double textScore(Document doc, List<String> queryTokens, String normalizedQuery) {
+        double score = 0;
+        if (doc.normalizedName().startsWith(normalizedQuery)) {
+            score += NAME_PREFIX_BONUS;
+        }
+        for (String token : queryTokens) {
+            if (doc.tokens().contains(token)) {
+                score += 1;
+            }
+        }
+        // Prefer the shorter, more specific title when everything else ties
+        return score - doc.normalizedName().length() / 1_000.0;
+    }
+
+    /**
+     * The best hits for one short prefix. Every matching product outside the set scores at most
+     * {@code floor}, so the set answers any page it still holds that many hits for; a hit pushed out
+     * raises the floor to its score. Negative infinity means the set holds every match.
+     */
+    private static final class TopHits {
+        private final TreeSet<Hit> hits = new TreeSet<>(Comparator.comparingDouble(Hit::score).reversed()
+                .thenComparingInt(hit -> hit.entry().pid()));
+        private final Map<Integer, Hit> byPid = new HashMap<>();
+        private double floor;
+
+        private TopHits(List<Hit> ranked, double floor) {
+            ranked.forEach(hit -> {
+                hits.add(hit);
+                byPid.put(hit.entry().pid(), hit);
+            });
+            this.floor = floor;
+        }
+
+        private boolean covers(int limit) {
+            return hits.size() >= limit || floor == Double.NEGATIVE_INFINITY;
+        }
+
+        private List<Entry> first(int limit) {
+            return hits.stream().limit(limit).map(Hit::entry).toList();
+        }
+
+        private void update(int pid, Hit hit) {
+            Hit old = byPid.remove(pid);
+            if (old != null) {
+                hits.remove(old);
+            }
+            // A hit at or below the floor may rank under products that aren't held
+            if (hit == null || hit.score() <= floor) {
+                return;
+            }
+            hits.add(hit);
+            byPid.put(pid, hit);
+            if (hits.size() > SHORT_PREFIX_TOP_SIZE) {
+                Hit out = hits.pollLast();
+                byPid.remove(out.entry().pid());
+                floor = out.score();
+            }
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.dealspy.index;
+
+import com.example.dealspy.common.TransactionCallbacks;
+import com.example.dealspy.repo.WatchListRepo;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * In-memory mirror of user_product_watchlist. Every Firebase uid gets a dense int id and every
+ * product keeps a compressed bitmap of the ids watching it, so fan-out sets, watcher counts and
+ * intersections across products never have to go to Postgres.
+ */
+@Component
+@Slf4j
+public class WatcherIndex {
+
+    private final WatchListRepo watchListRepo;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private State state = new State();
+    private List<Consumer<State>> pendingDuringRebuild;
+    private volatile boolean ready;
+
+    public WatcherIndex(WatchListRepo watchListRepo) {
+        this.watchListRepo = watchListRepo;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+
+        lock.writeLock().lock();
+        try {
+            pendingDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        State rebuilt = new State();
+        try (Stream<Object[]> rows = watchListRepo.streamAllUidAndProductIds()) {
+            rows.forEach(row -> rebuilt.add((String) row[0], (Integer) row[1]));
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendingDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.error("Failed to rebuild watcher index: {}", e.getMessage(), e);
+            throw e;
+        }
+        rebuilt.watchersByProduct.values().forEach(RoaringBitmap::runOptimize);
+
+        lock.writeLock().lock();
+        try {
+            // Writes that committed while we were streaming are replayed on top of the snapshot
+            pendingDuringRebuild.forEach(op -> op.accept(rebuilt));
+            pendingDuringRebuild = null;
+            state = rebuilt;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        log.info("Watcher index rebuilt: {} users, {} products in {} ms",
+                rebuilt.uidsById.size(), rebuilt.watchersByProduct.size(), System.currentTimeMillis() - start);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void addWatcher(String uid, Integer pid) {
+        TransactionCallbacks.afterCommit(() -> apply(s -> s.add(uid, pid)));
+    }
+
+    public void removeWatcher(String uid, Integer pid) {
+        TransactionCallbacks.afterCommit(() -> apply(s -> s.remove(uid, pid)));
+    }
+
+    public void removeUser(String uid) {
+        TransactionCallbacks.afterCommit(() -> apply(s -> s.removeUser(uid)));
+    }
+
+    public int watcherCount(Integer pid) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap watchers = state.watchersByProduct.get(pid);
+            return watchers == null ? 0 : watchers.getCardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isWatching(String uid, Integer pid) {
+        lock.readLock().lock();
+        try {
+            Integer userId = state.idsByUid.get(uid);
+            RoaringBitmap watchers = state.watchersByProduct.get(pid);
+            return userId != null && watchers != null && watchers.contains(userId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public RoaringBitmap watchers(Integer pid) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap watchers = state.watchersByProduct.get(pid);
+            return watchers == null ? new RoaringBitmap() : watchers.clone();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public RoaringBitmap watchersOfAll(Collection<Integer> pids) {
+        lock.readLock().lock();
+        try {
+            List<RoaringBitmap> bitmaps = new ArrayList<>(pids.size());
+            for (Integer pid : pids) {
+                RoaringBitmap watchers = state.watchersByProduct.get(pid);
+                if (watchers == null) {
+                    return new RoaringBitmap();
+                }
+                bitmaps.add(watchers);
+            }
+            return bitmaps.isEmpty() ? new RoaringBitmap() : FastAggregation.and(bitmaps.iterator());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public RoaringBitmap watchersOfAny(Collection<Integer> pids) {
+        lock.readLock().lock();
+        try {
+            List<RoaringBitmap> bitmaps = new ArrayList<>(pids.size());
+            for (Integer pid : pids) {
+                RoaringBitmap watchers = state.watchersByProduct.get(pid);
+                if (watchers != null) {
+                    bitmaps.add(watchers);
+                }
+            }
+            return FastAggregation.or(bitmaps.iterator());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<String> toUids(RoaringBitmap userIds) {
+        lock.readLock().lock();
+        try {
+            List<String> uids = new ArrayList<>(userIds.getCardinality());
+            userIds.forEach((int id) -> uids.add(state.uidsById.get(id)));
+            return uids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void apply(Consumer<State> op) {
+        lock.writeLock().lock();
+        try {
+            op.accept(state);
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(op);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static final class State {
+        private final Map<String, Integer> idsByUid = new HashMap<>();
+        private final List<String> uidsById = new ArrayList<>();
+        private final Map<Integer, RoaringBitmap> watchersByProduct = new HashMap<>();
+        private final Map<Integer, RoaringBitmap> productsByUser = new HashMap<>();
+
+        private int idFor(String uid) {
+            return idsByUid.computeIfAbsent(uid, key -> {
+                uidsById.add(key);
+                return uidsById.size() - 1;
+            });
+        }
+
+        private void add(String uid, Integer pid) {
+            int userId = idFor(uid);
+            watchersByProduct.computeIfAbsent(pid, key -> new RoaringBitmap()).add(userId);
+            productsByUser.computeIfAbsent(userId, key -> new RoaringBitmap()).add(pid);
+        }
+
+        private void remove(String uid, Integer pid) {
+            Integer userId = idsByUid.get(uid);
+            if (userId == null) {
+                return;
+            }
+            removeFromProduct(pid, userId);
+            RoaringBitmap products = productsByUser.get(userId);
+            if (products != null) {
+                products.remove(pid);
+                if (products.isEmpty()) {
+                    productsByUser.remove(userId);
+                }
+            }
+        }
+
+        private void removeUser(String uid) {
+            Integer userId = idsByUid.get(uid);
+            if (userId == null) {
+                return;
+            }
+            RoaringBitmap products = productsByUser.remove(userId);
+            if (products != null) {
+                products.forEach((int pid) -> removeFromProduct(pid, userId));
+            }
+        }
+
+        private void removeFromProduct(int pid, int userId) {
+            RoaringBitmap watchers = watchersByProduct.get(pid);
+            if (watchers != null) {
+                watchers.remove(userId);
+                if (watchers.isEmpty()) {
+                    watchersByProduct.remove(pid);
+                }
+            }
+        }
+    }
+}
@@ -16,6 +16,7 @@ public interface WatchlistMapper {
     @Mapping(source = "product.imageUrl",        target = "imageUrl")
     @Mapping(source = "product.deepLink",        target = "deepLink")
     @Mapping(source = "product.currentPrice",    target = "price")
+    @Mapping(target = "bestOffer", ignore = true)
     WatchlistDTO toDTO(Watchlist watchlist);
 
     @Mapping(source = "product.name",            target = "productName")
@@ -25,6 +26,7 @@ public interface WatchlistMapper {
     @Mapping(source = "product.deepLink",        target = "deepLink")
     @Mapping(source = "product.currentPrice",    target = "price")
     @Mapping(source = "product.lastLowestPrice", target = "lastKnownPrice")
+    @Mapping(target = "bestOffer", ignore = true)
     WatchlistResponseDTO toResponseDTO(Watchlist watchlist);
 
     List<WatchlistDTO> toDTOList(List<Watchlist> watchlists);
@@ -26,4 +26,15 @@ public class Product {
     private Boolean isPriceDropped;
     private String imageUrl;
     private String deepLink;
+
+    // Written only by ProductCounterService so entity saves never clobber concurrent increments
+    @Column(insertable = false, updatable = false)
+    private Integer watcherCount;
+
+    @Column(insertable = false, updatable = false)
+    private Integer saverCount;
+
+    // Smallest pid of the cross-platform group this product belongs to, see ProductClusteringService
+    @Column(insertable = false, updatable = false)
+    private Integer groupId;
 }
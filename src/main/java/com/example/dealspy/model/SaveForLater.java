@@ -6,7 +6,7 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 @Entity
-@Table(name = "user_product_save_for_later", uniqueConstraints = @UniqueConstraint(columnNames = {"uid", "pid"}))
+@Table(name = "user_product_save_for_later", uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "pid"}))
 @NoArgsConstructor
 @Getter
 @Setter
@@ -16,7 +16,7 @@ public class SaveForLater {
     private Long id;
 
     @ManyToOne
-    @JoinColumn(name = "uid",referencedColumnName = "uid")
+    @JoinColumn(name = "user_id", referencedColumnName = "id")
     private User user;
 
     @ManyToOne
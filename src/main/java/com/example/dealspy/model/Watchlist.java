@@ -10,7 +10,7 @@ import java.time.LocalDate;
 @Entity
 @Table(
         name = "user_product_watchlist",
-        uniqueConstraints = @UniqueConstraint(columnNames = {"uid", "pid"})
+        uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "pid"})
 )
 @NoArgsConstructor
 @Getter
@@ -21,7 +21,7 @@ public class Watchlist {
     private Long id;
 
     @ManyToOne
-    @JoinColumn(name = "uid",referencedColumnName = "uid")
+    @JoinColumn(name = "user_id", referencedColumnName = "id")
     private User user;
 
     @ManyToOne
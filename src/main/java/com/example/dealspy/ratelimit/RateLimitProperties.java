@@ -0,0 +1,32 @@
+package com.example.dealspy.ratelimit;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per-endpoint request limits. Rules are matched in order against the request path (Spring path
+ * patterns) and, when set, the HTTP method; requests matching no rule use the defaults.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "dealspy.ratelimit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+    private int stripes = 64;
+    private int defaultPerMinute = 600;
+    private int defaultBurst = 100;
+    private List<Rule> rules = new ArrayList<>();
+
+    @Data
+    public static class Rule {
+        private String method;
+        private String pattern;
+        private int perMinute;
+        private int burst;
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.dealspy.ratelimit;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets keyed by caller, each one a single {@link AtomicLong} updated with one CAS (the
+ * GCRA formulation: the bucket stores the time at which it will be full again, so refilling needs
+ * no separate timestamp). A bucket that has refilled completely behaves exactly like a missing
+ * one, so each stripe of the map sweeps out full buckets once it has seen enough new keys; memory
+ * stays proportional to the callers active within one burst window.
+ */
+public class TokenBucketLimiter {
+
+    /** Sustained rate plus the burst a caller may spend at once after being idle. */
+    public record Limit(long intervalNanos, long toleranceNanos) {
+        public static Limit perMinute(int requests, int burst) {
+            long interval = TimeUnit.MINUTES.toNanos(1) / requests;
+            return new Limit(interval, interval * burst);
+        }
+    }
+
+    private static final int MIN_SWEEP_INTERVAL = 256;
+
+    private final ConcurrentHashMap<String, AtomicLong>[] stripes;
+    private final AtomicInteger[] insertsUntilSweep;
+    private final int mask;
+    private final LongSupplier clock;
+
+    public TokenBucketLimiter(int stripeCount) {
+        this(stripeCount, System::nanoTime);
+    }
+
+    @SuppressWarnings("unchecked")
+    TokenBucketLimiter(int stripeCount, LongSupplier clock) {
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        stripes = new ConcurrentHashMap[size];
+        insertsUntilSweep = new AtomicInteger[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ConcurrentHashMap<>();
+            insertsUntilSweep[i] = new AtomicInteger(MIN_SWEEP_INTERVAL);
+        }
+        mask = size - 1;
+        this.clock = clock;
+    }
+
+    /** Takes one token; returns 0 when granted, otherwise the nanos until the next token is due. */
+    public long tryAcquire(String key, Limit limit) {
+        long now = clock.getAsLong();
+        int h = key.hashCode();
+        int stripe = (h ^ (h >>> 16)) & mask;
+        ConcurrentHashMap<String, AtomicLong> buckets = stripes[stripe];
+
+        AtomicLong fullAt = buckets.get(key);
+        if (fullAt == null) {
+            // New (or swept) caller: a full bucket, minus the token taken now
+            fullAt = buckets.putIfAbsent(key, new AtomicLong(now + limit.intervalNanos()));
+            if (fullAt == null) {
+                maybeSweep(stripe, now);
+                return 0;
+            }
+        }
+
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, now) + limit.intervalNanos();
+            long wait = next - now - limit.toleranceNanos();
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (ConcurrentHashMap<String, AtomicLong> stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    // Amortized O(1): a stripe is swept once it has taken as many new keys as it held after its
+    // last sweep. A caller racing with the sweep may land on a bucket just removed, which at worst
+    // grants one extra token to someone whose bucket was already full.
+    private void maybeSweep(int stripe, long now) {
+        if (insertsUntilSweep[stripe].decrementAndGet() > 0) {
+            return;
+        }
+        ConcurrentHashMap<String, AtomicLong> buckets = stripes[stripe];
+        buckets.values().removeIf(fullAt -> fullAt.get() - now <= 0);
+        insertsUntilSweep[stripe].set(Math.max(MIN_SWEEP_INTERVAL, buckets.size()));
+    }
+}
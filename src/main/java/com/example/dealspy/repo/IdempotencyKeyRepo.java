@@ -0,0 +1,72 @@
+package com.example.dealspy.repo;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+
+@Repository
+@RequiredArgsConstructor
+public class IdempotencyKeyRepo {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /** A stored key; status and body are null while the original request is still running. */
+    public record Entry(String requestHash, Integer status, String body, Instant createdAt) {
+    }
+
+    /**
+     * Returns true when the caller now owns the key and runs the request: the row is new, or its
+     * previous owner never completed it (e.g. the node died) and claimed it before {@code staleBefore}.
+     */
+    public boolean claim(String uid, String key, String requestHash, Instant staleBefore) {
+        return jdbcTemplate.update(
+                "INSERT INTO idempotency_key (uid, idem_key, request_hash) VALUES (:uid, :key, :hash) " +
+                        "ON CONFLICT (uid, idem_key) DO UPDATE SET request_hash = EXCLUDED.request_hash, created_at = now() " +
+                        "WHERE idempotency_key.status IS NULL AND idempotency_key.created_at < :staleBefore",
+                new MapSqlParameterSource()
+                        .addValue("uid", uid)
+                        .addValue("key", key)
+                        .addValue("hash", requestHash)
+                        .addValue("staleBefore", Timestamp.from(staleBefore))) == 1;
+    }
+
+    public Optional<Entry> find(String uid, String key) {
+        return jdbcTemplate.query(
+                "SELECT request_hash, status, body, created_at FROM idempotency_key WHERE uid = :uid AND idem_key = :key",
+                Map.of("uid", uid, "key", key),
+                (rs, rowNum) -> new Entry(rs.getString(1), rs.getObject(2, Integer.class),
+                        rs.getString(3), rs.getTimestamp(4).toInstant())).stream().findFirst();
+    }
+
+    public void complete(String uid, String key, int status, String body) {
+        jdbcTemplate.update(
+                "UPDATE idempotency_key SET status = :status, body = :body WHERE uid = :uid AND idem_key = :key",
+                new MapSqlParameterSource()
+                        .addValue("uid", uid)
+                        .addValue("key", key)
+                        .addValue("status", status)
+                        .addValue("body", body));
+    }
+
+    /** Drops an unfinished claim so a retry can run the request again. */
+    public void release(String uid, String key) {
+        jdbcTemplate.update(
+                "DELETE FROM idempotency_key WHERE uid = :uid AND idem_key = :key AND status IS NULL",
+                Map.of("uid", uid, "key", key));
+    }
+
+    public int deleteByUid(String uid) {
+        return jdbcTemplate.update("DELETE FROM idempotency_key WHERE uid = :uid", Map.of("uid", uid));
+    }
+
+    public int deleteCreatedBefore(Instant cutoff) {
+        return jdbcTemplate.update("DELETE FROM idempotency_key WHERE created_at < :cutoff",
+                Map.of("cutoff", Timestamp.from(cutoff)));
+    }
+}
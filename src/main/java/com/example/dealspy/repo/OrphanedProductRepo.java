@@ -0,0 +1,45 @@
+package com.example.dealspy.repo;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+@RequiredArgsConstructor
+public class OrphanedProductRepo {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /** The last pid of the next {@code limit} products after {@code afterPid}, empty past the end. */
+    public Optional<Integer> findBatchEnd(int afterPid, int limit) {
+        return jdbcTemplate.queryForList(
+                "SELECT max(pid) FROM (SELECT pid FROM product WHERE pid > :after ORDER BY pid LIMIT :limit) batch",
+                new MapSqlParameterSource()
+                        .addValue("after", afterPid)
+                        .addValue("limit", limit),
+                Integer.class).stream().filter(pid -> pid != null).findFirst();
+    }
+
+    /**
+     * Deletes the products in (afterPid, upToPid] that no watchlist or save-for-later row refers to
+     * (anti-join on the pid indexes) and returns their pids. Rows locked by a transaction that is
+     * adding them to a list right now are skipped; their LSH buckets go with them (ON DELETE CASCADE).
+     */
+    public List<Integer> deleteUnreferenced(int afterPid, int upToPid) {
+        return jdbcTemplate.queryForList(
+                "WITH orphan AS (SELECT p.pid FROM product p " +
+                        "WHERE p.pid > :after AND p.pid <= :upTo " +
+                        "AND NOT EXISTS (SELECT 1 FROM user_product_watchlist w WHERE w.pid = p.pid) " +
+                        "AND NOT EXISTS (SELECT 1 FROM user_product_save_for_later s WHERE s.pid = p.pid) " +
+                        "FOR UPDATE SKIP LOCKED) " +
+                        "DELETE FROM product p USING orphan WHERE p.pid = orphan.pid RETURNING p.pid",
+                new MapSqlParameterSource()
+                        .addValue("after", afterPid)
+                        .addValue("upTo", upToPid),
+                Integer.class);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.dealspy.repo;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/** Product attributes a client can ask for with {@code fields=}, and the columns each one needs. */
+public enum ProductField {
+    PRODUCT_NAME("productName", "p.name"),
+    BRAND("brand", "p.brand"),
+    PLATFORM("platform", "p.platform"),
+    IMAGE_URL("imageUrl", "p.imageUrl"),
+    DEEP_LINK("deepLink", "p.deepLink"),
+    PRICE("price", "p.currentPrice"),
+    LAST_KNOWN_PRICE("lastKnownPrice", "p.lastLowestPrice"),
+    // Computed from the best-offer map; the product's own listing is the fallback offer
+    BEST_OFFER("bestOffer", "p.name", "p.platform", "p.deepLink", "p.currentPrice");
+
+    private final String jsonName;
+    private final List<String> columns;
+
+    ProductField(String jsonName, String... columns) {
+        this.jsonName = jsonName;
+        this.columns = List.of(columns);
+    }
+
+    public String jsonName() {
+        return jsonName;
+    }
+
+    public List<String> columns() {
+        return columns;
+    }
+
+    /** Parses a comma-separated list such as {@code productName,price}, rejecting unknown names. */
+    public static Set<ProductField> parse(String fields, Set<ProductField> allowed) {
+        EnumSet<ProductField> parsed = EnumSet.noneOf(ProductField.class);
+        for (String name : fields.split(",")) {
+            String trimmed = name.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            ProductField field = allowed.stream()
+                    .filter(f -> f.jsonName.equals(trimmed))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown field: " + trimmed));
+            parsed.add(field);
+        }
+        if (parsed.isEmpty()) {
+            throw new IllegalArgumentException("fields must name at least one field");
+        }
+        return parsed;
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.dealspy.repo;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+// Plain JDBC: one row per (band, product) adds up to millions of rows, which JPA entities would
+// only slow down
+@Repository
+@RequiredArgsConstructor
+public class ProductLshBandRepo {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public void insertBuckets(Map<Integer, long[]> bucketsByPid) {
+        List<SqlParameterSource> rows = new ArrayList<>();
+        bucketsByPid.forEach((pid, buckets) -> {
+            for (int band = 0; band < buckets.length; band++) {
+                rows.add(new MapSqlParameterSource()
+                        .addValue("band", band)
+                        .addValue("bucket", buckets[band])
+                        .addValue("pid", pid));
+            }
+        });
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO product_lsh_band (band, bucket, pid) VALUES (:band, :bucket, :pid) ON CONFLICT DO NOTHING",
+                rows.toArray(SqlParameterSource[]::new));
+    }
+
+    /** Pairs of (pid, candidate pid) sharing at least one bucket, for the given pids. */
+    public List<int[]> findCandidatePairs(Collection<Integer> pids) {
+        return jdbcTemplate.query(
+                "SELECT DISTINCT b.pid, c.pid AS candidate FROM product_lsh_band b " +
+                        "JOIN product_lsh_band c ON c.band = b.band AND c.bucket = b.bucket AND c.pid <> b.pid " +
+                        "WHERE b.pid IN (:pids)",
+                Map.of("pids", pids),
+                (rs, rowNum) -> new int[]{rs.getInt(1), rs.getInt(2)});
+    }
+}
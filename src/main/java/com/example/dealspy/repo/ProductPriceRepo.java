@@ -0,0 +1,127 @@
+package com.example.dealspy.repo;
+
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Array;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bulk price apply: the new prices are streamed into a temp table over the COPY protocol and
+ * applied with one set-based UPDATE, instead of an UPDATE per product.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ProductPriceRepo {
+
+    private static final int COPY_BUFFER_CHARS = 64 * 1024;
+
+    // Applied in one statement, so every SET expression sees the row as it was before:
+    // last_lowest_price is the lowest price before the new one, and the drop flag says whether
+    // the new price beats it. A product whose price did not change keeps its lowest price and
+    // only has a stale drop flag cleared; otherwise it is not written at all. The self-join on
+    // "old" reads the same pre-update snapshot, which RETURNING can't see otherwise.
+    private static final String APPLY_SQL =
+            "WITH applied AS (" +
+                    "UPDATE product p SET " +
+                    "current_price = u.price, " +
+                    "last_lowest_price = CASE WHEN p.current_price IS DISTINCT FROM u.price " +
+                    "THEN LEAST(p.last_lowest_price, p.current_price) ELSE p.last_lowest_price END, " +
+                    "is_price_dropped = p.current_price IS DISTINCT FROM u.price " +
+                    "AND COALESCE(u.price < LEAST(p.last_lowest_price, p.current_price), FALSE) " +
+                    "FROM price_apply u JOIN product old ON old.pid = u.pid " +
+                    "WHERE p.pid = u.pid AND (p.current_price IS DISTINCT FROM u.price OR p.is_price_dropped) " +
+                    "RETURNING p.pid, old.current_price AS previous_price, p.is_price_dropped) " +
+                    "SELECT array_agg(pid ORDER BY pid), array_agg(previous_price ORDER BY pid), " +
+                    "array_agg(pid ORDER BY pid) FILTER (WHERE is_price_dropped) FROM applied";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * The price each written row had before, by pid ascending (null where it had none), and the
+     * pids whose new price is a drop.
+     */
+    public record Applied(Map<Integer, Double> previousPrices, List<Integer> droppedPids) {
+
+        public int updated() {
+            return previousPrices.size();
+        }
+    }
+
+    /** Products that no longer exist are ignored, as are null prices. */
+    @Transactional
+    public Applied apply(Map<Integer, Double> prices) {
+        return jdbcTemplate.execute((ConnectionCallback<Applied>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("DROP TABLE IF EXISTS price_apply");
+                statement.execute("CREATE TEMP TABLE price_apply (pid INTEGER NOT NULL, price DOUBLE PRECISION NOT NULL) " +
+                        "ON COMMIT DROP");
+            }
+
+            CopyIn copy = connection.unwrap(PGConnection.class).getCopyAPI()
+                    .copyIn("COPY price_apply (pid, price) FROM STDIN");
+            try {
+                StringBuilder rows = new StringBuilder(COPY_BUFFER_CHARS + 64);
+                for (Map.Entry<Integer, Double> price : prices.entrySet()) {
+                    if (price.getKey() == null || price.getValue() == null) {
+                        continue;
+                    }
+                    rows.append(price.getKey()).append('\t').append(price.getValue().doubleValue()).append('\n');
+                    if (rows.length() >= COPY_BUFFER_CHARS) {
+                        write(copy, rows);
+                    }
+                }
+                write(copy, rows);
+                copy.endCopy();
+            } finally {
+                if (copy.isActive()) {
+                    copy.cancelCopy();
+                }
+            }
+
+            try (Statement statement = connection.createStatement()) {
+                // Temp tables are never auto-analyzed; without statistics the join is planned for a handful of rows
+                statement.execute("ANALYZE price_apply");
+                try (ResultSet rs = statement.executeQuery(APPLY_SQL)) {
+                    rs.next();
+                    return new Applied(previousPrices(rs.getArray(1), rs.getArray(2)), pids(rs.getArray(3)));
+                }
+            }
+        });
+    }
+
+    private static void write(CopyIn copy, StringBuilder rows) throws SQLException {
+        byte[] bytes = rows.toString().getBytes(StandardCharsets.UTF_8);
+        copy.writeToCopy(bytes, 0, bytes.length);
+        rows.setLength(0);
+    }
+
+    private static Map<Integer, Double> previousPrices(Array pids, Array prices) throws SQLException {
+        if (pids == null) {
+            return Map.of();
+        }
+        Integer[] pidValues = (Integer[]) pids.getArray();
+        Double[] priceValues = (Double[]) prices.getArray();
+        Map<Integer, Double> previous = new LinkedHashMap<>(pidValues.length * 4 / 3 + 1);
+        for (int i = 0; i < pidValues.length; i++) {
+            previous.put(pidValues[i], priceValues[i]);
+        }
+        return previous;
+    }
+
+    private static List<Integer> pids(Array array) throws SQLException {
+        return array == null ? List.of() : Arrays.asList((Integer[]) array.getArray());
+    }
+}
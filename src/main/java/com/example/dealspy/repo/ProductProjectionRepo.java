@@ -0,0 +1,65 @@
+package com.example.dealspy.repo;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Watchlist / save-for-later products reduced to the columns a {@code fields=} request needs.
+ * One JPQL string is generated per (list, field set) and reused, so Hibernate's query plan cache
+ * hits after the first request for a given field set.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ProductProjectionRepo {
+
+    private final EntityManager entityManager;
+
+    private final Map<String, Projection> projections = new ConcurrentHashMap<>();
+
+    private record Projection(String jpql, List<String> columns) {
+    }
+
+    public List<Map<String, Object>> findWatchlistProducts(String uid, Set<ProductField> fields) {
+        return find("Watchlist", uid, fields);
+    }
+
+    public List<Map<String, Object>> findSaveForLaterProducts(String uid, Set<ProductField> fields) {
+        return find("SaveForLater", uid, fields);
+    }
+
+    private List<Map<String, Object>> find(String entity, String uid, Set<ProductField> fields) {
+        Projection projection = projections.computeIfAbsent(entity + fields, key -> build(entity, fields));
+        List<Object[]> rows = entityManager.createQuery(projection.jpql(), Object[].class)
+                .setParameter("uid", uid)
+                .getResultList();
+
+        List<Map<String, Object>> result = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            Map<String, Object> byColumn = new HashMap<>();
+            for (int i = 0; i < row.length; i++) {
+                byColumn.put(projection.columns().get(i), row[i]);
+            }
+            result.add(byColumn);
+        }
+        return result;
+    }
+
+    private static Projection build(String entity, Set<ProductField> fields) {
+        // The pid always comes along: it identifies the row and keys the best-offer lookup
+        Set<String> columns = new LinkedHashSet<>();
+        columns.add("p.pid");
+        fields.forEach(field -> columns.addAll(field.columns()));
+        String jpql = "SELECT " + String.join(", ", columns) +
+                " FROM " + entity + " e JOIN e.product p WHERE e.user.uid = :uid ORDER BY e.id";
+        return new Projection(jpql, List.copyOf(columns));
+    }
+}
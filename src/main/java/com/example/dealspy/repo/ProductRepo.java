@@ -1,12 +1,81 @@
 package com.example.dealspy.repo;
 
 import com.example.dealspy.model.Product;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface ProductRepo extends JpaRepository<Product, Integer> {
     Optional<Product> findByName(String productName);
+
+    // Held until the caller's transaction ends, so the orphan collector cannot delete a product
+    // that is about to be referenced (it skips locked rows); FOR KEY SHARE does not block price updates
+    @Query(value = "SELECT * FROM product WHERE name = :name FOR KEY SHARE", nativeQuery = true)
+    Optional<Product> lockByName(@Param("name") String productName);
+
+    @Query("SELECT p FROM Product p WHERE p.isPriceDropped = true AND p.currentPrice IS NOT NULL")
+    List<Product> findDroppedProducts();
+
+    @Query("SELECT p FROM Product p WHERE p.currentPrice < p.lastLowestPrice")
+    List<Product> findDiscountedProducts();
+
+    @Query("SELECT p.pid, p.currentPrice FROM Product p")
+    List<Object[]> findAllPidsAndPrices();
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "10000"))
+    @Query("SELECT p.pid, p.name, p.brand, p.platform, p.imageUrl, p.deepLink, p.currentPrice FROM Product p")
+    Stream<Object[]> streamSearchFields();
+
+    @Query("SELECT p FROM Product p WHERE p.groupId IS NULL ORDER BY p.pid")
+    List<Product> findUngrouped(Limit limit);
+
+    @Modifying
+    @Query("UPDATE Product p SET p.groupId = :groupId WHERE p.pid IN :pids")
+    int assignGroup(@Param("groupId") Integer groupId, @Param("pids") Collection<Integer> pids);
+
+    @Modifying
+    @Query("UPDATE Product p SET p.groupId = :groupId WHERE p.groupId IN :groupIds")
+    int mergeGroups(@Param("groupId") Integer groupId, @Param("groupIds") Collection<Integer> groupIds);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "10000"))
+    @Query("SELECT p.pid, p.groupId, p.name, p.platform, p.deepLink, p.currentPrice FROM Product p " +
+            "WHERE p.groupId IN (SELECT q.groupId FROM Product q GROUP BY q.groupId HAVING COUNT(q) > 1)")
+    Stream<Object[]> streamGroupedOffers();
+
+    @Query("SELECT p.pid, p.groupId, p.name, p.platform, p.deepLink, p.currentPrice FROM Product p " +
+            "WHERE p.groupId IN :groupIds")
+    List<Object[]> findOffersByGroupIds(@Param("groupIds") Collection<Integer> groupIds);
+
+    @Query("SELECT p.pid, p.watcherCount, p.saverCount FROM Product p")
+    List<Object[]> findAllCounters();
+
+    @Modifying
+    @Query("UPDATE Product p SET p.watcherCount = p.watcherCount + :watchers, p.saverCount = p.saverCount + :savers WHERE p.pid = :pid")
+    int adjustCounters(@Param("pid") Integer pid, @Param("watchers") int watchers, @Param("savers") int savers);
+
+    // Products whose stored counters differ from a recount of the association tables
+    @Query(value = "SELECT c.pid, c.watchers, c.savers FROM (SELECT p.pid, p.watcher_count, p.saver_count, " +
+            "(SELECT COUNT(*) FROM user_product_watchlist w WHERE w.pid = p.pid) AS watchers, " +
+            "(SELECT COUNT(*) FROM user_product_save_for_later s WHERE s.pid = p.pid) AS savers " +
+            "FROM product p) c " +
+            "WHERE c.watcher_count <> c.watchers OR c.saver_count <> c.savers",
+            nativeQuery = true)
+    List<Object[]> findCounterDrift();
+
+    @Modifying
+    @Query("UPDATE Product p SET p.watcherCount = :watchers, p.saverCount = :savers WHERE p.pid = :pid")
+    int setCounters(@Param("pid") Integer pid, @Param("watchers") int watchers, @Param("savers") int savers);
 }
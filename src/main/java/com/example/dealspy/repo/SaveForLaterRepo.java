@@ -18,8 +18,8 @@ public interface SaveForLaterRepo extends JpaRepository<SaveForLater, Long> {
     List<SaveForLater> findByUser(User user);
 
     @Modifying(flushAutomatically = true, clearAutomatically = true)
-    @Query("DELETE FROM SaveForLater w WHERE w.user.uid = :uid AND w.product.pid = :pid")
-    int deleteByUserUidAndProductPid(@Param("uid") String uid, @Param("pid") Integer pid);
+    @Query("DELETE FROM SaveForLater w WHERE w.user.id = :userId AND w.product.pid = :pid")
+    int deleteByUserIdAndProductPid(@Param("userId") Long userId, @Param("pid") Integer pid);
 
     Optional<SaveForLater> findByUserAndProduct(User user, Product product);
 
@@ -0,0 +1,98 @@
+package com.example.dealspy.repo;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@Repository
+@RequiredArgsConstructor
+public class UserDeletionRepo {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /** An association table of a user and the progress column the worker keeps for it. */
+    public enum Association {
+        WATCHLIST("user_product_watchlist", "watchlist_cursor"),
+        SAVE_FOR_LATER("user_product_save_for_later", "save_for_later_cursor");
+
+        private final String table;
+        private final String cursorColumn;
+
+        Association(String table, String cursorColumn) {
+            this.table = table;
+            this.cursorColumn = cursorColumn;
+        }
+    }
+
+    /** How far the worker has got: the last pid removed per association table. */
+    public record Progress(int watchlistCursor, int saveForLaterCursor, long rowsDeleted) {
+
+        public int cursor(Association association) {
+            return association == Association.WATCHLIST ? watchlistCursor : saveForLaterCursor;
+        }
+    }
+
+    /**
+     * Anonymizes the user (uid and email are freed for a new sign-up, no FCM token means no more
+     * notifications) and queues the rest of the deletion.
+     */
+    public void tombstone(long userId) {
+        jdbcTemplate.update(
+                "UPDATE users SET uid = 'deleted:' || id, email = 'deleted-' || id || '@invalid', " +
+                        "name = NULL, fcm_token = NULL WHERE id = :id",
+                Map.of("id", userId));
+        jdbcTemplate.update(
+                "INSERT INTO user_deletion (user_id) VALUES (:id) ON CONFLICT (user_id) DO NOTHING",
+                Map.of("id", userId));
+    }
+
+    public List<Long> findPending(int limit) {
+        return jdbcTemplate.queryForList(
+                "SELECT user_id FROM user_deletion ORDER BY requested_at LIMIT :limit",
+                Map.of("limit", limit), Long.class);
+    }
+
+    public Optional<Progress> findProgress(long userId) {
+        return jdbcTemplate.query(
+                "SELECT watchlist_cursor, save_for_later_cursor, rows_deleted FROM user_deletion WHERE user_id = :id",
+                Map.of("id", userId),
+                (rs, rowNum) -> new Progress(rs.getInt(1), rs.getInt(2), rs.getLong(3))).stream().findFirst();
+    }
+
+    /**
+     * Deletes the user's next {@code limit} rows after {@code afterPid}, walking the (user_id, pid)
+     * unique index, and returns their pids in ascending order. Starting past the cursor keeps each
+     * chunk from re-reading the index entries of rows already deleted but not yet vacuumed.
+     */
+    public List<Integer> deleteChunk(Association association, long userId, int afterPid, int limit) {
+        return jdbcTemplate.queryForList(
+                "WITH chunk AS (SELECT id FROM " + association.table + " WHERE user_id = :id AND pid > :after " +
+                        "ORDER BY pid LIMIT :limit) " +
+                        "DELETE FROM " + association.table + " t USING chunk WHERE t.id = chunk.id RETURNING t.pid",
+                new MapSqlParameterSource()
+                        .addValue("id", userId)
+                        .addValue("after", afterPid)
+                        .addValue("limit", limit),
+                Integer.class).stream().sorted().toList();
+    }
+
+    public void advance(Association association, long userId, int cursor, int deleted) {
+        jdbcTemplate.update(
+                "UPDATE user_deletion SET " + association.cursorColumn + " = :cursor, " +
+                        "rows_deleted = rows_deleted + :deleted WHERE user_id = :id",
+                new MapSqlParameterSource()
+                        .addValue("id", userId)
+                        .addValue("cursor", cursor)
+                        .addValue("deleted", deleted));
+    }
+
+    public void finish(long userId) {
+        jdbcTemplate.update("DELETE FROM user_deletion WHERE user_id = :id", Map.of("id", userId));
+        jdbcTemplate.update("DELETE FROM users WHERE id = :id", Map.of("id", userId));
+    }
+}
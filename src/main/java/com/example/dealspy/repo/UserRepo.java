@@ -8,10 +8,21 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface UserRepo extends JpaRepository<User,String> {
+public interface UserRepo extends JpaRepository<User,Long> {
     Optional<User> findByUid(String uid);
 
+    boolean existsByUid(String uid);
+
+    @Query("SELECT u.id FROM User u WHERE u.uid = :uid")
+    Optional<Long> findIdByUid(@Param("uid") String uid);
+
+    // Notification fan-out: the recipients come from WatcherIndex, only their tokens from here
+    @Query("SELECT u.fcmToken FROM User u WHERE u.uid IN :uids AND u.fcmToken IS NOT NULL")
+    List<String> findFcmTokensByUids(@Param("uids") Collection<String> uids);
+
 }
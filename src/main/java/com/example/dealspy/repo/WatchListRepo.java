@@ -3,15 +3,20 @@ package com.example.dealspy.repo;
 import com.example.dealspy.model.Product;
 import com.example.dealspy.model.User;
 import com.example.dealspy.model.Watchlist;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface WatchListRepo extends JpaRepository<Watchlist, Long> {
@@ -24,11 +29,18 @@ public interface WatchListRepo extends JpaRepository<Watchlist, Long> {
     boolean existsByUserAndProduct(User user, Product product);
 
     @Modifying(flushAutomatically = true, clearAutomatically = true)
-    @Query("DELETE FROM Watchlist w WHERE w.user.uid = :uid AND w.product.pid = :pid")
-    int deleteByUserUidAndProductPid(@Param("uid") String uid, @Param("pid") Integer pid);
+    @Query("DELETE FROM Watchlist w WHERE w.user.id = :userId AND w.product.pid = :pid")
+    int deleteByUserIdAndProductPid(@Param("userId") Long userId, @Param("pid") Integer pid);
 
     @Modifying(flushAutomatically = true, clearAutomatically = true)
-    @Query("DELETE FROM Watchlist w WHERE w.user.uid = :uid")
-    int deleteByUserUid(@Param("uid") String uid);
+    @Query("DELETE FROM Watchlist w WHERE w.user.id = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT w.product.pid FROM Watchlist w WHERE w.user.id = :userId")
+    List<Integer> findProductIdsByUserId(@Param("userId") Long userId);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "10000"))
+    @Query("SELECT w.user.uid, w.product.pid FROM Watchlist w")
+    Stream<Object[]> streamAllUidAndProductIds();
 
 }
@@ -0,0 +1,161 @@
+package com.example.dealspy.service;
+
+import com.example.dealspy.common.ApiResponse;
+import com.example.dealspy.dto.BatchRequestDTO;
+import com.example.dealspy.dto.BatchResultDTO;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutor;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the app's launch requests ({@code /auth/verify}, {@code /profile}, {@code /watchlist},
+ * {@code /saveforlater}) as one HTTP call. The batch is authenticated once by the regular filter,
+ * and every sub-request runs as that user. {@code /auth/verify} runs first because it registers
+ * the user the reads look up; the reads then run in parallel. When the pool is saturated the
+ * request thread runs the work itself.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BatchService {
+
+    private static final String VERIFY_PATH = "/auth/verify";
+
+    private final UserService userService;
+    private final WatchListService watchListService;
+    private final SaveForLaterService saveForLaterService;
+    private final ProductFieldsService productFieldsService;
+
+    @Value("${dealspy.batch.max-requests:10}")
+    private int maxRequests;
+
+    @Value("${dealspy.batch.threads:16}")
+    private int threads;
+
+    private ThreadPoolExecutor executor;
+
+    /** Identity of the authenticated caller, as established by the Firebase filter. */
+    public record Caller(String uid, String email, String name, String fcmToken) {
+    }
+
+    @PostConstruct
+    void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * 4), runnable -> {
+                    Thread thread = new Thread(runnable, "batch-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public List<BatchResultDTO> execute(Caller caller, List<BatchRequestDTO> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new IllegalArgumentException("Batch must contain at least one request");
+        }
+        if (requests.size() > maxRequests) {
+            throw new IllegalArgumentException("Batch is limited to " + maxRequests + " requests");
+        }
+
+        List<CompletableFuture<BatchResultDTO>> results = new ArrayList<>(requests.size());
+        for (BatchRequestDTO request : requests) {
+            if (VERIFY_PATH.equals(pathOf(request))) {
+                results.add(CompletableFuture.completedFuture(run(caller, request)));
+            }
+        }
+        int verified = results.size();
+        // The reads run as the caller on the pool threads too (replica routing checks who it is)
+        Executor asCaller = new DelegatingSecurityContextExecutor(executor);
+        for (BatchRequestDTO request : requests) {
+            if (!VERIFY_PATH.equals(pathOf(request))) {
+                results.add(CompletableFuture.supplyAsync(() -> run(caller, request), asCaller));
+            }
+        }
+
+        // Back into the order the client sent them
+        List<BatchResultDTO> ordered = new ArrayList<>(requests.size());
+        int verifyIndex = 0;
+        int readIndex = verified;
+        for (BatchRequestDTO request : requests) {
+            int index = VERIFY_PATH.equals(pathOf(request)) ? verifyIndex++ : readIndex++;
+            ordered.add(results.get(index).join());
+        }
+        return ordered;
+    }
+
+    private BatchResultDTO run(Caller caller, BatchRequestDTO request) {
+        try {
+            if (request.getMethod() != null && !"GET".equalsIgnoreCase(request.getMethod())) {
+                return result(request, HttpStatus.METHOD_NOT_ALLOWED, "Only GET requests can be batched");
+            }
+            if (request.getPath() == null || !request.getPath().startsWith("/")) {
+                return result(request, HttpStatus.BAD_REQUEST, "Sub-request path must start with /");
+            }
+            UriComponents uri = UriComponentsBuilder.fromUriString(request.getPath()).build();
+            String fields = uri.getQueryParams().getFirst("fields");
+            String uid = caller.uid();
+
+            return switch (uri.getPath()) {
+                case VERIFY_PATH -> {
+                    userService.syncVerifiedUser(uid, caller.email(), caller.name(), caller.fcmToken());
+                    yield result(request, HttpStatus.OK, "User authenticated successfully", null);
+                }
+                case "/profile" -> result(request, HttpStatus.OK, "Profile loaded successfully",
+                        fields == null ? userService.getUser(uid) : productFieldsService.getUser(uid, fields));
+                case "/watchlist" -> result(request, HttpStatus.OK, "watchlist fetched successfully",
+                        fields == null ? watchListService.getUserWatchList(uid)
+                                : productFieldsService.getUserWatchList(uid, fields));
+                case "/saveforlater" -> result(request, HttpStatus.OK, "Save For Later fetched successfully",
+                        fields == null ? saveForLaterService.getUserSaveForLater(uid)
+                                : productFieldsService.getUserSaveForLater(uid, fields));
+                default -> result(request, HttpStatus.NOT_FOUND, "Unsupported batch path: " + uri.getPath());
+            };
+        } catch (UsernameNotFoundException e) {
+            return result(request, HttpStatus.NOT_FOUND, e.getMessage());
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return result(request, HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (Exception e) {
+            log.error("Batch sub-request {} {} failed", request.getMethod(), request.getPath(), e);
+            return result(request, HttpStatus.INTERNAL_SERVER_ERROR, "Internal server error");
+        }
+    }
+
+    private static String pathOf(BatchRequestDTO request) {
+        String path = request.getPath();
+        if (path == null) {
+            return null;
+        }
+        int query = path.indexOf('?');
+        return query < 0 ? path : path.substring(0, query);
+    }
+
+    private static BatchResultDTO result(BatchRequestDTO request, HttpStatus status, String message) {
+        return new BatchResultDTO(request.getId(), status.value(), new ApiResponse<>(false, message, null));
+    }
+
+    private static BatchResultDTO result(BatchRequestDTO request, HttpStatus status, String message, Object data) {
+        return new BatchResultDTO(request.getId(), status.value(), new ApiResponse<>(true, message, data));
+    }
+}
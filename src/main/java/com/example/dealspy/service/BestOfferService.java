@@ -0,0 +1,162 @@
+package com.example.dealspy.service;
+
+import com.example.dealspy.common.TransactionCallbacks;
+import com.example.dealspy.dto.BestOfferDTO;
+import com.example.dealspy.model.Product;
+import com.example.dealspy.repo.ProductRepo;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Cheapest current listing per cross-platform product group, kept in memory so watchlist and
+ * profile reads attach it without touching the other listings. Only groups with more than one
+ * listing are held; a product on its own is its own best offer. Price changes update the single
+ * affected group, and groups are reloaded when clustering assigns or merges them.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BestOfferService {
+
+    private final ProductRepo productRepo;
+
+    private final Map<Integer, GroupOffers> groups = new ConcurrentHashMap<>();
+    private final Map<Integer, Integer> groupOf = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        Map<Integer, GroupOffers> loaded = new HashMap<>();
+        try (Stream<Object[]> rows = productRepo.streamGroupedOffers()) {
+            rows.forEach(row -> addRow(loaded, row));
+        }
+        install(loaded);
+        log.info("Loaded best offers for {} product groups covering {} products", groups.size(), groupOf.size());
+    }
+
+    public BestOfferDTO bestOffer(Product product) {
+        return bestOffer(product.getPid(), product.getName(), product.getPlatform(),
+                product.getDeepLink(), product.getCurrentPrice());
+    }
+
+    /** Same as {@link #bestOffer(Product)} for callers that only loaded the listing's offer columns. */
+    public BestOfferDTO bestOffer(Integer pid, String name, String platform, String deepLink, Double price) {
+        Integer groupId = groupOf.get(pid);
+        GroupOffers group = groupId == null ? null : groups.get(groupId);
+        Offer best = group == null ? null : group.best;
+        if (best == null) {
+            if (price == null) {
+                return null;
+            }
+            best = new Offer(pid, name, platform, deepLink, price);
+        }
+        return new BestOfferDTO(best.productName(), best.platform(), best.deepLink(), best.price());
+    }
+
+    public void update(Product product) {
+        Offer offer = new Offer(product.getPid(), product.getName(), product.getPlatform(),
+                product.getDeepLink(), product.getCurrentPrice());
+        TransactionCallbacks.afterCommit(() -> {
+            Integer groupId = groupOf.get(offer.pid());
+            GroupOffers group = groupId == null ? null : groups.get(groupId);
+            if (group != null) {
+                group.put(offer);
+            }
+        });
+    }
+
+    /** Drops a deleted listing; a group left with a single listing is no longer held. */
+    public void remove(Integer pid) {
+        TransactionCallbacks.afterCommit(() -> {
+            Integer groupId = groupOf.remove(pid);
+            GroupOffers group = groupId == null ? null : groups.get(groupId);
+            if (group != null && group.remove(pid) <= 1) {
+                groups.remove(groupId);
+                group.pids().forEach(groupOf::remove);
+            }
+        });
+    }
+
+    /** Reloads groups after clustering assigned new members to them or merged others into them. */
+    public void regroup(Collection<Integer> groupIds, Collection<Integer> mergedGroupIds) {
+        TransactionCallbacks.afterCommit(() -> {
+            mergedGroupIds.forEach(groups::remove);
+            if (groupIds.isEmpty()) {
+                return;
+            }
+            Map<Integer, GroupOffers> loaded = new HashMap<>();
+            for (Object[] row : productRepo.findOffersByGroupIds(groupIds)) {
+                addRow(loaded, row);
+            }
+            install(loaded);
+        });
+    }
+
+    private void install(Map<Integer, GroupOffers> loaded) {
+        loaded.forEach((groupId, group) -> {
+            if (group.size() > 1) {
+                groups.put(groupId, group);
+                group.pids().forEach(pid -> groupOf.put(pid, groupId));
+            } else {
+                groups.remove(groupId);
+                group.pids().forEach(groupOf::remove);
+            }
+        });
+    }
+
+    private static void addRow(Map<Integer, GroupOffers> loaded, Object[] row) {
+        loaded.computeIfAbsent((Integer) row[1], key -> new GroupOffers())
+                .put(new Offer((Integer) row[0], (String) row[2], (String) row[3], (String) row[4], (Double) row[5]));
+    }
+
+    private record Offer(Integer pid, String productName, String platform, String deepLink, Double price) {
+    }
+
+    // Groups are a handful of listings, so the best is simply recomputed on every change
+    private static final class GroupOffers {
+        private final Map<Integer, Offer> offers = new HashMap<>();
+        private volatile Offer best;
+
+        private synchronized void put(Offer offer) {
+            offers.put(offer.pid(), offer);
+            best = cheapest();
+        }
+
+        private Offer cheapest() {
+            Offer cheapest = null;
+            for (Offer candidate : offers.values()) {
+                if (candidate.price() != null && (cheapest == null || candidate.price() < cheapest.price())) {
+                    cheapest = candidate;
+                }
+            }
+            return cheapest;
+        }
+
+        private synchronized int remove(Integer pid) {
+            offers.remove(pid);
+            if (best != null && best.pid().equals(pid)) {
+                best = cheapest();
+            }
+            return offers.size();
+        }
+
+        private synchronized int size() {
+            return offers.size();
+        }
+
+        private synchronized List<Integer> pids() {
+            return List.copyOf(offers.keySet());
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.dealspy.service;
+
+import com.example.dealspy.common.ApiResponse;
+import com.example.dealspy.common.TransactionCallbacks;
+import com.example.dealspy.dto.DealDTO;
+import com.example.dealspy.model.Product;
+import com.example.dealspy.repo.ProductRepo;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Public "top deals" feed. Every product currently priced below its last lowest price is kept in
+ * memory; price updates add, change or drop it. A scheduled rebuild ranks the drops by percentage
+ * off, weighted by watchers, and swaps in an immutable snapshot holding the response already
+ * serialized, so serving the feed is a volatile read and a socket write.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DealsFeedService {
+
+    private final ProductRepo productRepo;
+    private final ProductCounterService productCounterService;
+    private final ObjectMapper objectMapper;
+
+    private final Map<Integer, Deal> deals = new ConcurrentHashMap<>();
+    private final AtomicBoolean dirty = new AtomicBoolean(true);
+
+    private volatile Snapshot snapshot;
+    private volatile long snapshotBuiltAt;
+
+    @Value("${dealspy.deals.size:100}")
+    private int size;
+
+    // Watcher counts move without a price update, so an unchanged feed is still re-ranked now and then
+    @Value("${dealspy.deals.max-age-ms:60000}")
+    private long maxAgeMs;
+
+    public record Snapshot(byte[] body, String etag) {
+    }
+
+    private record Deal(Integer pid, String productName, String brand, String platform, String imageUrl,
+                        String deepLink, Double price, Double lastLowestPrice, double dropPercent) {
+    }
+
+    private record RankedDeal(Deal deal, int watchers, double score) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        for (Product product : productRepo.findDiscountedProducts()) {
+            put(product);
+        }
+        rebuild();
+        log.info("Deals feed loaded with {} discounted products", deals.size());
+    }
+
+    public Snapshot snapshot() {
+        Snapshot current = snapshot;
+        return current != null ? current : rebuild();
+    }
+
+    public void update(Product product) {
+        TransactionCallbacks.afterCommit(() -> put(product));
+    }
+
+    public void remove(Integer pid) {
+        TransactionCallbacks.afterCommit(() -> {
+            if (deals.remove(pid) != null) {
+                dirty.set(true);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${dealspy.deals.rebuild-interval-ms:2000}")
+    public void rebuildIfStale() {
+        if (dirty.get() || System.currentTimeMillis() - snapshotBuiltAt >= maxAgeMs) {
+            rebuild();
+        }
+    }
+
+    synchronized Snapshot rebuild() {
+        dirty.set(false);
+
+        // Min-heap of the best `size` deals: O(n log k) per rebuild
+        PriorityQueue<RankedDeal> best = new PriorityQueue<>(Comparator.comparingDouble(RankedDeal::score));
+        for (Deal deal : deals.values()) {
+            int watchers = productCounterService.watcherCount(deal.pid());
+            RankedDeal ranked = new RankedDeal(deal, watchers, deal.dropPercent() * (1 + Math.log1p(watchers)));
+            if (best.size() < size) {
+                best.add(ranked);
+            } else if (ranked.score() > best.peek().score()) {
+                best.poll();
+                best.add(ranked);
+            }
+        }
+
+        List<RankedDeal> ordered = new ArrayList<>(best);
+        ordered.sort(Comparator.comparingDouble(RankedDeal::score).reversed());
+        List<DealDTO> feed = ordered.stream()
+                .map(r -> new DealDTO(r.deal().productName(), r.deal().brand(), r.deal().platform(),
+                        r.deal().imageUrl(), r.deal().deepLink(), r.deal().price(), r.deal().lastLowestPrice(),
+                        r.deal().dropPercent(), r.watchers()))
+                .toList();
+
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(
+                    new ApiResponse<>(true, "Top deals fetched successfully", feed));
+            Snapshot built = new Snapshot(body, "\"" + DigestUtils.md5DigestAsHex(body) + "\"");
+            snapshot = built;
+            snapshotBuiltAt = System.currentTimeMillis();
+            return built;
+        } catch (JsonProcessingException e) {
+            dirty.set(true);
+            throw new IllegalStateException("Failed to serialize deals feed", e);
+        }
+    }
+
+    private void put(Product product) {
+        Double price = product.getCurrentPrice();
+        Double lastLowest = product.getLastLowestPrice();
+        if (price == null || lastLowest == null || lastLowest <= 0 || price >= lastLowest) {
+            if (deals.remove(product.getPid()) != null) {
+                dirty.set(true);
+            }
+            return;
+        }
+
+        double dropPercent = Math.round((lastLowest - price) / lastLowest * 10_000) / 100.0;
+        deals.put(product.getPid(), new Deal(product.getPid(), product.getName(), product.getBrand(),
+                product.getPlatform(), product.getImageUrl(), product.getDeepLink(), price, lastLowest, dropPercent));
+        dirty.set(true);
+    }
+}
@@ -5,7 +5,11 @@ import com.google.firebase.messaging.FirebaseMessagingException;
 import com.google.firebase.messaging.Message;
 import com.google.firebase.messaging.Notification;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
@@ -15,7 +19,14 @@ import java.util.concurrent.CompletableFuture;
 @Slf4j
 public class FCMService {
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObjectProvider<FirebaseMessaging> firebaseMessaging;
+
     public void sendNotificationToToken(String token, String title, String body) {
+        Timer.Sample send = Timer.start(meterRegistry);
         try {
             Message message = Message.builder()
                     .setToken(token)
@@ -25,9 +36,13 @@ public class FCMService {
                             .build())
                     .build();
 
-            String response = FirebaseMessaging.getInstance().send(message);
+            String response = firebaseMessaging.getObject().send(message);
+            send.stop(meterRegistry.timer("dealspy.fcm.send", "result", "success"));
             log.info("Successfully sent message: {}", response);
         } catch (FirebaseMessagingException e) {
+            // Error codes are a small fixed enum, e.g. UNREGISTERED for tokens of uninstalled apps
+            String result = e.getMessagingErrorCode() != null ? e.getMessagingErrorCode().name() : "UNKNOWN";
+            send.stop(meterRegistry.timer("dealspy.fcm.send", "result", result));
             log.error("Error sending FCM message", e);
         }
     }
@@ -0,0 +1,179 @@
+package com.example.dealspy.service;
+
+import com.example.dealspy.common.ApiResponse;
+import com.example.dealspy.repo.IdempotencyKeyRepo;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Makes retried POSTs safe with an {@code Idempotency-Key} header. The first request with a key
+ * claims it in Postgres, runs, and stores its response; a replay of the same key and body gets
+ * that response back from a bounded in-memory cache (or the table, on another node) without
+ * running the request again. A replay while the original is still running gets 409, and reusing
+ * a key for a different request gets 422. Failed requests release their key so they can be
+ * retried. Keys expire after the configured TTL.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 128;
+    private static final TypeReference<ApiResponse<Void>> BODY_TYPE = new TypeReference<>() {
+    };
+
+    private final IdempotencyKeyRepo idempotencyKeyRepo;
+    private final ObjectMapper objectMapper;
+
+    @Value("${dealspy.idempotency.ttl-ms:86400000}")
+    private long ttlMs;
+
+    @Value("${dealspy.idempotency.cache-size:10000}")
+    private int cacheSize;
+
+    // A claim this old without a response belongs to a request that died; the key may be reclaimed
+    @Value("${dealspy.idempotency.in-flight-timeout-ms:60000}")
+    private long inFlightTimeoutMs;
+
+    private Map<CacheKey, Completed> completed;
+
+    private record CacheKey(String uid, String key) {
+    }
+
+    private record Completed(String requestHash, int status, ApiResponse<Void> body, long expiresAt) {
+    }
+
+    @PostConstruct
+    void init() {
+        completed = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CacheKey, Completed> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /**
+     * Runs {@code action} once per (user, key). {@code endpoint} and {@code request} identify the
+     * request, so the same key sent with a different body is rejected rather than replayed.
+     */
+    public ResponseEntity<ApiResponse<Void>> execute(String uid, String key, String endpoint, Object request,
+                                                     Supplier<ResponseEntity<ApiResponse<Void>>> action) {
+        if (key == null) {
+            return action.get();
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException(HEADER + " must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+
+        String requestHash = hash(endpoint, request);
+        CacheKey cacheKey = new CacheKey(uid, key);
+        long now = System.currentTimeMillis();
+        Completed cached = completed.get(cacheKey);
+        if (cached != null && cached.expiresAt() > now) {
+            return replay(cached, requestHash);
+        }
+
+        if (!idempotencyKeyRepo.claim(uid, key, requestHash, Instant.ofEpochMilli(now - inFlightTimeoutMs))) {
+            IdempotencyKeyRepo.Entry entry = idempotencyKeyRepo.find(uid, key).orElse(null);
+            if (entry == null || entry.status() == null) {
+                return error(HttpStatus.CONFLICT, "A request with this " + HEADER + " is still in progress");
+            }
+            Completed stored = new Completed(entry.requestHash(), entry.status(), read(entry.body()),
+                    entry.createdAt().toEpochMilli() + ttlMs);
+            completed.put(cacheKey, stored);
+            return replay(stored, requestHash);
+        }
+
+        ResponseEntity<ApiResponse<Void>> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            idempotencyKeyRepo.release(uid, key);
+            throw e;
+        }
+        try {
+            idempotencyKeyRepo.complete(uid, key, response.getStatusCode().value(), write(response.getBody()));
+        } catch (RuntimeException e) {
+            // The request itself succeeded; other nodes just see the claim until it times out
+            log.warn("Failed to store response for idempotency key of user {}", uid, e);
+        }
+        completed.put(cacheKey, new Completed(requestHash, response.getStatusCode().value(), response.getBody(),
+                now + ttlMs));
+        return response;
+    }
+
+    @Scheduled(fixedDelayString = "${dealspy.idempotency.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        synchronized (completed) {
+            completed.values().removeIf(entry -> entry.expiresAt() <= now);
+        }
+        int deleted = idempotencyKeyRepo.deleteCreatedBefore(Instant.ofEpochMilli(now - ttlMs));
+        if (deleted > 0) {
+            log.info("Purged {} expired idempotency keys", deleted);
+        }
+    }
+
+    private ResponseEntity<ApiResponse<Void>> replay(Completed stored, String requestHash) {
+        if (!stored.requestHash().equals(requestHash)) {
+            return error(HttpStatus.UNPROCESSABLE_ENTITY, HEADER + " was already used for a different request");
+        }
+        return ResponseEntity.status(stored.status())
+                .header(REPLAYED_HEADER, "true")
+                .body(stored.body());
+    }
+
+    private static ResponseEntity<ApiResponse<Void>> error(HttpStatus status, String message) {
+        return ResponseEntity.status(status).body(new ApiResponse<>(false, message, null));
+    }
+
+    private String hash(String endpoint, Object request) {
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(request);
+            byte[] prefix = (endpoint + "\n").getBytes(StandardCharsets.UTF_8);
+            byte[] bytes = new byte[prefix.length + body.length];
+            System.arraycopy(prefix, 0, bytes, 0, prefix.length);
+            System.arraycopy(body, 0, bytes, prefix.length, body.length);
+            return DigestUtils.md5DigestAsHex(bytes);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to fingerprint request", e);
+        }
+    }
+
+    private String write(ApiResponse<Void> body) {
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to store idempotent response", e);
+        }
+    }
+
+    private ApiResponse<Void> read(String body) {
+        try {
+            return objectMapper.readValue(body, BODY_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to read idempotent response", e);
+        }
+    }
+}
@@ -1,12 +1,19 @@
 package com.example.dealspy.service;
 
+import com.example.dealspy.index.WatcherIndex;
+import com.example.dealspy.model.Product;
 import com.example.dealspy.model.User;
+import com.example.dealspy.repo.UserRepo;
 import com.example.dealspy.repo.WatchListRepo;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 
 import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.RoaringBitmap;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
@@ -14,38 +21,56 @@ import java.util.concurrent.CompletableFuture;
 @Slf4j
 public class NotificationService {
 
+    // Bounds the IN list of one token lookup
+    private static final int TOKEN_BATCH_SIZE = 1000;
+
     private final WatchListRepo watchListRepo;
+    private final UserRepo userRepo;
     private final FCMService fcmService;
+    private final WatcherIndex watcherIndex;
+    private final DistributionSummary fanOut;
 
-    public NotificationService(WatchListRepo watchListRepo, FCMService fcmService) {
+    public NotificationService(WatchListRepo watchListRepo, UserRepo userRepo, FCMService fcmService,
+                               WatcherIndex watcherIndex, MeterRegistry meterRegistry) {
         this.watchListRepo = watchListRepo;
+        this.userRepo = userRepo;
         this.fcmService = fcmService;
+        this.watcherIndex = watcherIndex;
+        this.fanOut = DistributionSummary.builder("dealspy.notifications.fanout")
+                .description("Devices notified per price drop")
+                .baseUnit("devices")
+                .register(meterRegistry);
+    }
+    /** Whether a refreshed product should trigger a price-drop notification. */
+    public static boolean isNotifiableDrop(Product product) {
+        return Boolean.TRUE.equals(product.getIsPriceDropped()) && product.getCurrentPrice() != null;
     }
+
     @Async
     public void notifyPriceDropAsync(Integer productId, String productName, Double newPrice) {
         log.info("Processing price drop notification for product: {} (ID: {})", productName, productId);
 
         try {
-            List<User> users = watchListRepo.findUsersByProductId(productId);
+            List<String> tokens = fcmTokensOfWatchers(productId);
 
-            if (users.isEmpty()) {
+            if (tokens.isEmpty()) {
                 log.info("No users watching product: {}", productName);
-                CompletableFuture.completedFuture(null);
                 return;
             }
 
             String title = "Price Drop Alert!";
             String body = String.format("Price of %s has dropped to ₹%.2f", productName, newPrice);
 
-            for (User user : users) {
-                String fcmToken = user.getFcmToken();
+            int sent = 0;
+            for (String fcmToken : tokens) {
                 if (fcmToken != null && !fcmToken.trim().isEmpty()) {
                     fcmService.sendNotificationToTokenAsync(fcmToken, title, body);
-                    log.info("Sent notification to user: {}", user.getUid());
+                    sent++;
                 }
             }
+            fanOut.record(sent);
 
-            log.info("Price drop notification sent to {} users for product: {}", users.size(), productName);
+            log.info("Price drop notification sent to {} users for product: {}", sent, productName);
 
         } catch (Exception e) {
             log.error("Error in notifyPriceDropAsync for product {}: {}", productName, e.getMessage(), e);
@@ -53,4 +78,22 @@ public class NotificationService {
 
         CompletableFuture.completedFuture(null);
     }
+
+    // The watcher set comes from the in-memory index; Postgres is only asked for the tokens of those
+    // users, by uid. Until the index has loaded, the watchlist join is used instead.
+    private List<String> fcmTokensOfWatchers(Integer productId) {
+        if (!watcherIndex.isReady()) {
+            return watchListRepo.findUsersByProductId(productId).stream().map(User::getFcmToken).toList();
+        }
+        RoaringBitmap watchers = watcherIndex.watchers(productId);
+        if (watchers.isEmpty()) {
+            return List.of();
+        }
+        List<String> uids = watcherIndex.toUids(watchers);
+        List<String> tokens = new ArrayList<>(uids.size());
+        for (int from = 0; from < uids.size(); from += TOKEN_BATCH_SIZE) {
+            tokens.addAll(userRepo.findFcmTokensByUids(uids.subList(from, Math.min(from + TOKEN_BATCH_SIZE, uids.size()))));
+        }
+        return tokens;
+    }
 }
@@ -0,0 +1,133 @@
+package com.example.dealspy.service;
+
+import com.example.dealspy.common.TransactionCallbacks;
+import com.example.dealspy.repo.OrphanedProductRepo;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Deletes products that are on nobody's watchlist or save-for-later list any more. The catalog is
+ * walked in pid order a batch at a time, each batch in its own short transaction with a pause in
+ * between, on a worker thread of its own so the pauses don't hold up the other scheduled jobs.
+ * A product that is being added to a list while its batch runs is locked and skipped; it is
+ * looked at again on the next run. Deleted products are re-created from client data if anyone
+ * adds them again.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrphanedProductService {
+
+    private final OrphanedProductRepo orphanedProductRepo;
+    private final ProductSearchService productSearchService;
+    private final BestOfferService bestOfferService;
+    private final DealsFeedService dealsFeedService;
+    private final PriceRefreshScheduler priceRefreshScheduler;
+    private final ProductCounterService productCounterService;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${dealspy.products.gc.enabled:true}")
+    private boolean enabled;
+
+    @Value("${dealspy.products.gc.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${dealspy.products.gc.pause-ms:100}")
+    private long pauseMs;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private ExecutorService worker;
+
+    @PostConstruct
+    void init() {
+        worker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "product-gc");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        worker.shutdownNow();
+    }
+
+    @Scheduled(fixedDelayString = "${dealspy.products.gc.interval-ms:3600000}",
+            initialDelayString = "${dealspy.products.gc.interval-ms:3600000}")
+    public void start() {
+        if (enabled && running.compareAndSet(false, true)) {
+            worker.execute(() -> {
+                try {
+                    collect();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (RuntimeException e) {
+                    log.error("Orphaned product collection failed: {}", e.getMessage(), e);
+                } finally {
+                    running.set(false);
+                }
+            });
+        }
+    }
+
+    /** One pass over the whole catalog; returns the number of products deleted. */
+    int collect() throws InterruptedException {
+        long start = System.currentTimeMillis();
+        int cursor = 0;
+        int reclaimed = 0;
+        int batches = 0;
+        while (true) {
+            Optional<Integer> end = orphanedProductRepo.findBatchEnd(cursor, batchSize);
+            if (end.isEmpty()) {
+                break;
+            }
+            reclaimed += collectBatch(cursor, end.get());
+            batches++;
+            cursor = end.get();
+            Thread.sleep(pauseMs);
+        }
+        log.info("Orphaned product collection reclaimed {} products in {} batches ({} ms)",
+                reclaimed, batches, System.currentTimeMillis() - start);
+        return reclaimed;
+    }
+
+    private int collectBatch(int afterPid, int upToPid) {
+        try {
+            List<Integer> deleted = transactionTemplate.execute(status -> {
+                List<Integer> pids = orphanedProductRepo.deleteUnreferenced(afterPid, upToPid);
+                for (Integer pid : pids) {
+                    productSearchService.remove(pid);
+                    bestOfferService.remove(pid);
+                    dealsFeedService.remove(pid);
+                    TransactionCallbacks.afterCommit(() -> {
+                        priceRefreshScheduler.untrack(pid);
+                        productCounterService.forget(pid);
+                    });
+                }
+                return pids;
+            });
+            int reclaimed = deleted == null ? 0 : deleted.size();
+            meterRegistry.counter("dealspy.products.gc.reclaimed").increment(reclaimed);
+            return reclaimed;
+        } catch (DataIntegrityViolationException e) {
+            // A reference was committed between the orphan check and the delete; retried next run
+            log.warn("Skipping products {}..{} this run: {}", afterPid + 1, upToPid, e.getMessage());
+            return 0;
+        }
+    }
+}
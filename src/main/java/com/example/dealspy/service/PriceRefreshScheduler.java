@@ -0,0 +1,189 @@
+package com.example.dealspy.service;
+
+import com.example.dealspy.dto.PriceRefreshRequestDTO;
+import com.example.dealspy.fastapi.FastApiClient;
+import com.example.dealspy.model.Product;
+import com.example.dealspy.repo.ProductRepo;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Refreshes prices a bounded batch at a time instead of all at once. Every tick the tracked
+ * products are scored by demand (watchers), staleness and recent volatility, and the top batch is
+ * sent to the FastAPI service. Staleness grows without bound, so unwatched products still get
+ * their turn, just less often.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PriceRefreshScheduler {
+
+    // A product that moves ~5% per refresh is scored about twice as high as a stable one
+    private static final double VOLATILITY_WEIGHT = 20.0;
+    private static final double VOLATILITY_SMOOTHING = 0.3;
+
+    private final ProductRepo productRepo;
+    private final NotificationService notificationService;
+    private final ProductCounterService productCounterService;
+    private final ProductSearchService productSearchService;
+    private final BestOfferService bestOfferService;
+    private final DealsFeedService dealsFeedService;
+    private final PriceStreamService priceStreamService;
+    private final FastApiClient fastApiClient;
+
+    private final Map<Integer, RefreshStats> stats = new ConcurrentHashMap<>();
+
+    @Value("${dealspy.refresh.enabled:true}")
+    private boolean enabled;
+
+    @Value("${dealspy.refresh.batch-size:200}")
+    private int batchSize;
+
+    @Value("${dealspy.refresh.timeout-ms:30000}")
+    private long timeoutMs;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadProducts() {
+        long now = System.currentTimeMillis();
+        for (Object[] row : productRepo.findAllPidsAndPrices()) {
+            stats.putIfAbsent((Integer) row[0], new RefreshStats(now, (Double) row[1]));
+        }
+        log.info("Price refresh scheduler tracking {} products", stats.size());
+    }
+
+    public void track(Integer pid, Double price) {
+        stats.putIfAbsent(pid, new RefreshStats(System.currentTimeMillis(), price));
+    }
+
+    public void untrack(Integer pid) {
+        stats.remove(pid);
+    }
+
+    @Scheduled(fixedDelayString = "${dealspy.refresh.interval-ms:60000}",
+            initialDelayString = "${dealspy.refresh.interval-ms:60000}")
+    public void refreshNextBatch() {
+        if (!enabled || stats.isEmpty()) {
+            return;
+        }
+
+        List<Integer> batch = nextBatch(System.currentTimeMillis());
+        log.info("Requesting price refresh for {} of {} products", batch.size(), stats.size());
+        PriceRefreshRequestDTO request = new PriceRefreshRequestDTO(batch);
+        if (!fastApiClient.post("/v1/update/prices/batch", request, Duration.ofMillis(timeoutMs))) {
+            // Not marked refreshed, so the same products score highest again next tick
+            log.warn("Batch price refresh skipped for {} products", batch.size());
+            return;
+        }
+
+        applyRefreshed(batch);
+    }
+
+    List<Integer> nextBatch(long now) {
+        // Min-heap of the best batchSize candidates: O(n log k) per tick
+        PriorityQueue<ScoredProduct> best = new PriorityQueue<>(Comparator.comparingDouble(ScoredProduct::score));
+        stats.forEach((pid, s) -> {
+            ScoredProduct candidate = new ScoredProduct(pid, score(pid, s, now));
+            if (best.size() < batchSize) {
+                best.add(candidate);
+            } else if (candidate.score() > best.peek().score()) {
+                best.poll();
+                best.add(candidate);
+            }
+        });
+
+        List<ScoredProduct> ordered = new ArrayList<>(best);
+        ordered.sort(Comparator.comparingDouble(ScoredProduct::score).reversed());
+        return ordered.stream().map(ScoredProduct::pid).toList();
+    }
+
+    private double score(Integer pid, RefreshStats s, long now) {
+        double stalenessMinutes = Math.max(now - s.lastRefreshedAt, 0) / 60_000.0;
+        double demand = 1 + Math.log1p(productCounterService.watcherCount(pid));
+        return stalenessMinutes * demand * (1 + VOLATILITY_WEIGHT * s.volatility);
+    }
+
+    private void applyRefreshed(List<Integer> batch) {
+        long now = System.currentTimeMillis();
+        int dropped = 0;
+        Set<Integer> missing = new HashSet<>(batch);
+
+        for (Product product : productRepo.findAllById(batch)) {
+            missing.remove(product.getPid());
+            RefreshStats s = stats.get(product.getPid());
+            if (s != null) {
+                priceStreamService.publishPriceChange(product, s.lastPrice);
+                s.record(product.getCurrentPrice(), now);
+            }
+            productSearchService.index(product);
+            bestOfferService.update(product);
+            dealsFeedService.update(product);
+
+            if (s != null && s.isNewDrop(product)) {
+                notificationService.notifyPriceDropAsync(product.getPid(), product.getName(), product.getCurrentPrice());
+                dropped++;
+            }
+        }
+
+        // Products deleted since they were tracked would otherwise win every tick
+        missing.forEach(stats::remove);
+
+        log.info("Batch price refresh completed: {} products refreshed, {} price drops", batch.size(), dropped);
+    }
+
+    private record ScoredProduct(Integer pid, double score) {
+    }
+
+    private static final class RefreshStats {
+        private volatile long lastRefreshedAt;
+        private volatile Double lastPrice;
+        private volatile double volatility;
+        // Starts at the price the product was tracked with, so a drop already announced before a
+        // restart is not announced again
+        private volatile Double lastNotifiedPrice;
+
+        private RefreshStats(long lastRefreshedAt, Double lastPrice) {
+            this.lastRefreshedAt = lastRefreshedAt;
+            this.lastPrice = lastPrice;
+            this.lastNotifiedPrice = lastPrice;
+        }
+
+        // A product stays flagged as dropped across refreshes; only a price below the one last
+        // announced is a new drop. Once the flag clears, the next drop is announced again.
+        private boolean isNewDrop(Product product) {
+            if (!NotificationService.isNotifiableDrop(product)) {
+                lastNotifiedPrice = null;
+                return false;
+            }
+            Double price = product.getCurrentPrice();
+            if (lastNotifiedPrice != null && price >= lastNotifiedPrice) {
+                return false;
+            }
+            lastNotifiedPrice = price;
+            return true;
+        }
+
+        private void record(Double price, long now) {
+            if (price != null && lastPrice != null && lastPrice > 0) {
+                double change = Math.abs(price - lastPrice) / lastPrice;
+                volatility = VOLATILITY_SMOOTHING * change + (1 - VOLATILITY_SMOOTHING) * volatility;
+            }
+            lastPrice = price;
+            lastRefreshedAt = now;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.dealspy.service;
+
+import com.example.dealspy.common.TransactionCallbacks;
+import com.example.dealspy.dto.PriceUpdateDTO;
+import com.example.dealspy.index.WatcherIndex;
+import com.example.dealspy.model.Product;
+import com.example.dealspy.stream.PriceUpdateHub;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes price changes of watched products to connected clients over server-sent events. Recipients
+ * are resolved from the in-memory watcher index, walking whichever side is smaller: the product's
+ * watchers or the users connected to this node.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PriceStreamService {
+
+    private final WatcherIndex watcherIndex;
+
+    @Value("${dealspy.live.max-connections:10000}")
+    private int maxConnections;
+
+    @Value("${dealspy.live.max-connections-per-user:5}")
+    private int maxConnectionsPerUser;
+
+    @Value("${dealspy.live.buffer-size:256}")
+    private int bufferSize;
+
+    @Value("${dealspy.live.sender-threads:8}")
+    private int senderThreads;
+
+    @Value("${dealspy.live.send-timeout-ms:5000}")
+    private long sendTimeoutMs;
+
+    @Value("${dealspy.live.emitter-timeout-ms:1800000}")
+    private long emitterTimeoutMs;
+
+    private ExecutorService senders;
+    private PriceUpdateHub hub;
+
+    @PostConstruct
+    void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        senders = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "price-stream-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        hub = new PriceUpdateHub(maxConnections, maxConnectionsPerUser, bufferSize, sendTimeoutMs, senders);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        senders.shutdownNow();
+    }
+
+    /** Returns null when this node has no room for another connection from this user. */
+    public SseEmitter connect(String uid) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        PriceUpdateHub.Subscriber subscriber = hub.subscribe(uid, new PriceUpdateHub.Sink() {
+            @Override
+            public void send(List<PriceUpdateDTO> updates) throws Exception {
+                emitter.send(SseEmitter.event().name("price").data(updates, MediaType.APPLICATION_JSON));
+            }
+
+            @Override
+            public void heartbeat() throws Exception {
+                emitter.send(SseEmitter.event().comment("keepalive"));
+            }
+
+            @Override
+            public void close() {
+                emitter.complete();
+            }
+        });
+        if (subscriber == null) {
+            log.warn("Rejected price stream for user {}: {} connections open", uid, hub.connections());
+            return null;
+        }
+
+        emitter.onCompletion(() -> hub.unsubscribe(subscriber));
+        emitter.onTimeout(() -> hub.unsubscribe(subscriber));
+        emitter.onError(e -> hub.unsubscribe(subscriber));
+        log.debug("Price stream opened for user {} ({} connections)", uid, hub.connections());
+        return emitter;
+    }
+
+    public void publishPriceChange(Product product, Double previousPrice) {
+        if (Objects.equals(product.getCurrentPrice(), previousPrice)) {
+            return;
+        }
+        PriceUpdateDTO update = new PriceUpdateDTO(product.getName(), product.getPlatform(),
+                product.getCurrentPrice(), previousPrice, product.getIsPriceDropped(), System.currentTimeMillis());
+        Integer pid = product.getPid();
+        TransactionCallbacks.afterCommit(() -> fanOut(pid, update));
+    }
+
+    @Scheduled(fixedDelayString = "${dealspy.live.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        hub.heartbeat();
+    }
+
+    @Scheduled(fixedDelayString = "${dealspy.live.stall-check-interval-ms:1000}")
+    public void evictStalled() {
+        hub.evictStalled();
+    }
+
+    private void fanOut(Integer pid, PriceUpdateDTO update) {
+        if (hub.connectedUsers() == 0) {
+            return;
+        }
+        if (hub.connectedUsers() < watcherIndex.watcherCount(pid)) {
+            for (String uid : hub.connectedUids()) {
+                if (watcherIndex.isWatching(uid, pid)) {
+                    hub.publish(uid, update);
+                }
+            }
+        } else {
+            watcherIndex.toUids(watcherIndex.watchers(pid)).forEach(uid -> hub.publish(uid, update));
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.dealspy.service;
+
+import com.example.dealspy.index.ProductFingerprint;
+import com.example.dealspy.model.Product;
+import com.example.dealspy.repo.ProductLshBandRepo;
+import com.example.dealspy.repo.ProductRepo;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Groups listings of the same item across platforms. Products that have no group yet are taken a
+ * batch at a time, their MinHash band buckets are stored, and only products sharing a bucket are
+ * compared, so the cost per new product stays flat however large the catalog gets. Matches are
+ * merged with union-find; the group id is the smallest pid in the group. The first run backfills
+ * the whole catalog, later runs only see newly created products.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductClusteringService {
+
+    // A generic title can share a bucket with thousands of others; the closest matches are in
+    // the first few anyway
+    private static final int MAX_CANDIDATES_PER_PRODUCT = 100;
+
+    private final ProductRepo productRepo;
+    private final ProductLshBandRepo lshBandRepo;
+    private final BestOfferService bestOfferService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${dealspy.clustering.enabled:true}")
+    private boolean enabled;
+
+    @Value("${dealspy.clustering.batch-size:500}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${dealspy.clustering.interval-ms:30000}",
+            initialDelayString = "${dealspy.clustering.interval-ms:30000}")
+    public void clusterNewProducts() {
+        if (!enabled) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        int total = 0;
+        try {
+            Integer clustered;
+            do {
+                clustered = transactionTemplate.execute(status -> clusterBatch());
+                total += clustered == null ? 0 : clustered;
+            } while (clustered != null && clustered == batchSize);
+        } catch (Exception e) {
+            log.error("Product clustering failed after {} products: {}", total, e.getMessage(), e);
+        }
+
+        if (total > 0) {
+            log.info("Clustered {} new products in {} ms", total, System.currentTimeMillis() - start);
+        }
+    }
+
+    int clusterBatch() {
+        List<Product> batch = productRepo.findUngrouped(Limit.of(batchSize));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        Map<Integer, Product> products = new HashMap<>();
+        Map<Integer, ProductFingerprint> fingerprints = new HashMap<>();
+        Map<Integer, long[]> buckets = new HashMap<>();
+        for (Product product : batch) {
+            ProductFingerprint fingerprint = fingerprint(product);
+            products.put(product.getPid(), product);
+            fingerprints.put(product.getPid(), fingerprint);
+            buckets.put(product.getPid(), fingerprint.bandBuckets());
+        }
+        // Stored before the lookup so products within the same batch find each other
+        lshBandRepo.insertBuckets(buckets);
+
+        Map<Integer, List<Integer>> candidates = new HashMap<>();
+        Set<Integer> unloaded = new HashSet<>();
+        for (int[] pair : lshBandRepo.findCandidatePairs(products.keySet())) {
+            List<Integer> forProduct = candidates.computeIfAbsent(pair[0], key -> new ArrayList<>());
+            if (forProduct.size() < MAX_CANDIDATES_PER_PRODUCT) {
+                forProduct.add(pair[1]);
+                if (!products.containsKey(pair[1])) {
+                    unloaded.add(pair[1]);
+                }
+            }
+        }
+        for (Product product : productRepo.findAllById(unloaded)) {
+            products.put(product.getPid(), product);
+            fingerprints.put(product.getPid(), fingerprint(product));
+        }
+
+        // Already clustered products are linked to their group's canonical pid, so a new product
+        // matching one member joins the whole group, and one matching two groups merges them
+        Map<Integer, Integer> parent = new HashMap<>();
+        for (Product product : products.values()) {
+            if (product.getGroupId() != null) {
+                union(parent, product.getPid(), product.getGroupId());
+            }
+        }
+        for (Product product : batch) {
+            ProductFingerprint fingerprint = fingerprints.get(product.getPid());
+            for (Integer candidate : candidates.getOrDefault(product.getPid(), List.of())) {
+                ProductFingerprint other = fingerprints.get(candidate);
+                if (other != null && fingerprint.matches(other)) {
+                    union(parent, product.getPid(), candidate);
+                }
+            }
+        }
+
+        Map<Integer, Set<Integer>> mergedGroups = new HashMap<>();
+        for (Product product : products.values()) {
+            Integer groupId = product.getGroupId();
+            if (groupId != null && !groupId.equals(find(parent, groupId))) {
+                mergedGroups.computeIfAbsent(find(parent, groupId), key -> new HashSet<>()).add(groupId);
+            }
+        }
+        Map<Integer, List<Integer>> newMembers = new HashMap<>();
+        for (Product product : batch) {
+            newMembers.computeIfAbsent(find(parent, product.getPid()), key -> new ArrayList<>()).add(product.getPid());
+        }
+
+        mergedGroups.forEach(productRepo::mergeGroups);
+        newMembers.forEach(productRepo::assignGroup);
+        bestOfferService.regroup(newMembers.keySet(),
+                mergedGroups.values().stream().flatMap(Set::stream).toList());
+        log.debug("Clustered {} products: {} groups touched, {} merged", batch.size(), newMembers.size(),
+                mergedGroups.values().stream().mapToInt(Set::size).sum());
+        return batch.size();
+    }
+
+    private static ProductFingerprint fingerprint(Product product) {
+        return ProductFingerprint.of(product.getName(), product.getBrand(), product.getPlatform());
+    }
+
+    private static Integer find(Map<Integer, Integer> parent, Integer pid) {
+        Integer root = pid;
+        while (parent.containsKey(root)) {
+            root = parent.get(root);
+        }
+        // Path compression
+        Integer node = pid;
+        while (!node.equals(root)) {
+            Integer next = parent.get(node);
+            parent.put(node, root);
+            node = next;
+        }
+        return root;
+    }
+
+    // The smaller pid always becomes the root, so every root is its group's canonical id
+    private static void union(Map<Integer, Integer> parent, Integer a, Integer b) {
+        Integer rootA = find(parent, a);
+        Integer rootB = find(parent, b);
+        if (rootA < rootB) {
+            parent.put(rootB, rootA);
+        } else if (rootB < rootA) {
+            parent.put(rootA, rootB);
+        }
+    }
+}
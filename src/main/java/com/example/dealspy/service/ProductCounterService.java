@@ -0,0 +1,291 @@
+package com.example.dealspy.service;
+
+import com.example.dealspy.repo.ProductRepo;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntConsumer;
+
+/**
+ * Per-product watcher and saver counts. Reads are served from memory; committed changes are
+ * applied to memory immediately and buffered as deltas that are flushed to the product table in
+ * one short transaction, so popular products don't serialize every add/remove on a hot row.
+ * A periodic reconciliation recounts from the association tables and fixes any drift.
+ * <p>
+ * A change holds a read lock from just before its commit until its delta is buffered, so taking
+ * the write lock is a barrier: every change that committed before it has been buffered, and none
+ * commits while it is held. The write lock is only ever held for in-memory work.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductCounterService {
+
+    private final ProductRepo productRepo;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ReentrantReadWriteLock commitBarrier = new ReentrantReadWriteLock();
+    // Flushes drain pendingDeltas before writing them; load must not read in between
+    private final Object flushLock = new Object();
+
+    private volatile Map<Integer, Counts> counts = new ConcurrentHashMap<>();
+    private final Map<Integer, Counts> pendingDeltas = new ConcurrentHashMap<>();
+    // Pids changed while a reconciliation runs, null otherwise
+    private volatile Set<Integer> changedDuringReconcile;
+    private final List<IntConsumer> listeners = new CopyOnWriteArrayList<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        synchronized (flushLock) {
+            Map<Integer, Counts> loaded = new ConcurrentHashMap<>();
+            for (Object[] row : productRepo.findAllCounters()) {
+                loaded.put((Integer) row[0], new Counts(toInt(row[1]), toInt(row[2])));
+            }
+            // The table holds every flushed delta; whatever is still buffered goes on top
+            Map<Integer, Counts> previous;
+            commitBarrier.writeLock().lock();
+            try {
+                previous = counts;
+                pendingDeltas.forEach((pid, delta) -> loaded.computeIfAbsent(pid, key -> new Counts(0, 0))
+                        .add(delta.watchers.get(), delta.savers.get()));
+                counts = loaded;
+            } finally {
+                commitBarrier.writeLock().unlock();
+            }
+            log.info("Loaded watcher/saver counters for {} products", loaded.size());
+            if (!listeners.isEmpty()) {
+                changedBetween(previous, loaded).forEach(this::notifyListeners);
+            }
+        }
+    }
+
+    /**
+     * Registers a listener that is told the pid of every product whose counts changed, once the
+     * new counts are readable. Listeners run on the committing thread and must be quick.
+     */
+    public void onChange(IntConsumer listener) {
+        listeners.add(listener);
+    }
+
+    public int watcherCount(Integer pid) {
+        Counts c = counts.get(pid);
+        return c == null ? 0 : c.watchers.get();
+    }
+
+    public int saverCount(Integer pid) {
+        Counts c = counts.get(pid);
+        return c == null ? 0 : c.savers.get();
+    }
+
+    public void watcherAdded(Integer pid) {
+        adjustAfterCommit(pid, 1, 0);
+    }
+
+    public void watcherRemoved(Integer pid) {
+        adjustAfterCommit(pid, -1, 0);
+    }
+
+    public void saverAdded(Integer pid) {
+        adjustAfterCommit(pid, 0, 1);
+    }
+
+    public void saverRemoved(Integer pid) {
+        adjustAfterCommit(pid, 0, -1);
+    }
+
+    public void forget(Integer pid) {
+        counts.remove(pid);
+        pendingDeltas.remove(pid);
+    }
+
+    @Scheduled(fixedDelayString = "${dealspy.counters.flush-interval-ms:5000}")
+    public void flush() {
+        synchronized (flushLock) {
+            if (pendingDeltas.isEmpty()) {
+                return;
+            }
+
+            Map<Integer, Counts> drained = new HashMap<>();
+            for (Integer pid : pendingDeltas.keySet()) {
+                Counts delta = pendingDeltas.remove(pid);
+                if (delta != null) {
+                    drained.put(pid, delta);
+                }
+            }
+
+            try {
+                transactionTemplate.executeWithoutResult(status -> drained.forEach((pid, delta) ->
+                        productRepo.adjustCounters(pid, delta.watchers.get(), delta.savers.get())));
+                log.debug("Flushed counter deltas for {} products", drained.size());
+            } catch (Exception e) {
+                log.error("Failed to flush counter deltas for {} products, will retry: {}", drained.size(), e.getMessage());
+                drained.forEach((pid, delta) -> bufferDelta(pid, delta.watchers.get(), delta.savers.get()));
+            }
+        }
+    }
+
+    /**
+     * A recount can't tell whether a change that committed around it is already in the stored
+     * counter or still buffered, so products changed between the first flush and the end of the
+     * recount are left alone; the next run gets them. For every other product the stored counter
+     * holds all its deltas and the recount is exact.
+     */
+    @Scheduled(fixedDelayString = "${dealspy.counters.reconcile-interval-ms:3600000}",
+            initialDelayString = "${dealspy.counters.reconcile-interval-ms:3600000}")
+    public void reconcile() {
+        withBarrier(() -> changedDuringReconcile = ConcurrentHashMap.newKeySet());
+        Set<Integer> changed = changedDuringReconcile;
+        try {
+            flush();
+            List<Object[]> drift = productRepo.findCounterDrift();
+            withBarrier(() -> changedDuringReconcile = null);
+
+            int fixed = 0;
+            // Deltas still buffered (a failed flush) aren't in the stored counter either
+            List<Object[]> fixable = drift.stream()
+                    .filter(row -> !changed.contains((Integer) row[0]) && !pendingDeltas.containsKey((Integer) row[0]))
+                    .toList();
+            if (!fixable.isEmpty()) {
+                // A flush landing between the recount and this overwrite would be lost
+                synchronized (flushLock) {
+                    Integer updated = transactionTemplate.execute(status -> fixable.stream()
+                            .mapToInt(row -> productRepo.setCounters((Integer) row[0], toInt(row[1]), toInt(row[2])))
+                            .sum());
+                    fixed = updated == null ? 0 : updated;
+                }
+            }
+            if (fixed > 0) {
+                log.warn("Counter reconciliation corrected {} products ({} changed meanwhile, left for the next run)",
+                        fixed, drift.size() - fixable.size());
+            }
+            load();
+        } catch (Exception e) {
+            log.error("Counter reconciliation failed: {}", e.getMessage(), e);
+        } finally {
+            changedDuringReconcile = null;
+        }
+    }
+
+    private void adjustAfterCommit(Integer pid, int watchers, int savers) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            commitBarrier.readLock().lock();
+            try {
+                apply(pid, watchers, savers);
+            } finally {
+                commitBarrier.readLock().unlock();
+            }
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean locked;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                commitBarrier.readLock().lock();
+                locked = true;
+            }
+
+            @Override
+            public void afterCommit() {
+                apply(pid, watchers, savers);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (locked) {
+                    locked = false;
+                    commitBarrier.readLock().unlock();
+                }
+            }
+        });
+    }
+
+    // Called with the read lock held
+    private void apply(Integer pid, int watchers, int savers) {
+        counts.computeIfAbsent(pid, key -> new Counts(0, 0)).add(watchers, savers);
+        bufferDelta(pid, watchers, savers);
+        Set<Integer> changed = changedDuringReconcile;
+        if (changed != null) {
+            changed.add(pid);
+        }
+        notifyListeners(pid);
+    }
+
+    private void notifyListeners(Integer pid) {
+        for (IntConsumer listener : listeners) {
+            try {
+                listener.accept(pid);
+            } catch (Exception e) {
+                log.error("Counter listener failed for product {}: {}", pid, e.getMessage(), e);
+            }
+        }
+    }
+
+    private static Set<Integer> changedBetween(Map<Integer, Counts> before, Map<Integer, Counts> after) {
+        Set<Integer> changed = new HashSet<>();
+        after.forEach((pid, now) -> {
+            Counts then = before.get(pid);
+            if (then == null || !then.sameAs(now)) {
+                changed.add(pid);
+            }
+        });
+        before.keySet().stream().filter(pid -> !after.containsKey(pid)).forEach(changed::add);
+        return changed;
+    }
+
+    private void withBarrier(Runnable action) {
+        commitBarrier.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            commitBarrier.writeLock().unlock();
+        }
+    }
+
+    private void bufferDelta(Integer pid, int watchers, int savers) {
+        pendingDeltas.compute(pid, (key, delta) -> {
+            Counts d = delta == null ? new Counts(0, 0) : delta;
+            d.add(watchers, savers);
+            return d;
+        });
+    }
+
+    private static int toInt(Object value) {
+        return value == null ? 0 : ((Number) value).intValue();
+    }
+
+    private static final class Counts {
+        private final AtomicInteger watchers;
+        private final AtomicInteger savers;
+
+        private Counts(int watchers, int savers) {
+            this.watchers = new AtomicInteger(watchers);
+            this.savers = new AtomicInteger(savers);
+        }
+
+        private void add(int watchers, int savers) {
+            this.watchers.addAndGet(watchers);
+            this.savers.addAndGet(savers);
+        }
+
+        private boolean sameAs(Counts other) {
+            return watchers.get() == other.watchers.get() && savers.get() == other.savers.get();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.dealspy.service;
+
+import com.example.dealspy.repo.ProductField;
+import com.example.dealspy.repo.ProductProjectionRepo;
+import com.example.dealspy.repo.UserRepo;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Sparse reads for {@code fields=}: only the requested columns are selected and only the
+ * requested properties are serialized, in the order the DTOs declare them.
+ */
+@Service
+@RequiredArgsConstructor
+public class ProductFieldsService {
+
+    // Mirrors WatchlistResponseDTO / SaveForLaterDTO
+    public static final Set<ProductField> WATCHLIST_FIELDS = EnumSet.of(ProductField.PRODUCT_NAME,
+            ProductField.BRAND, ProductField.PLATFORM, ProductField.IMAGE_URL, ProductField.DEEP_LINK,
+            ProductField.PRICE, ProductField.LAST_KNOWN_PRICE, ProductField.BEST_OFFER);
+    public static final Set<ProductField> SAVE_FOR_LATER_FIELDS = EnumSet.of(ProductField.PRODUCT_NAME,
+            ProductField.BRAND, ProductField.PLATFORM, ProductField.IMAGE_URL, ProductField.DEEP_LINK,
+            ProductField.PRICE);
+    // Profile lists watchlist items as WatchlistDTO, which has no lastKnownPrice
+    public static final Set<ProductField> PROFILE_FIELDS = EnumSet.of(ProductField.PRODUCT_NAME,
+            ProductField.BRAND, ProductField.PLATFORM, ProductField.IMAGE_URL, ProductField.DEEP_LINK,
+            ProductField.PRICE, ProductField.BEST_OFFER);
+
+    private final ProductProjectionRepo productProjectionRepo;
+    private final BestOfferService bestOfferService;
+    private final UserRepo userRepo;
+
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getUserWatchList(String uid, String fields) {
+        Set<ProductField> requested = ProductField.parse(fields, WATCHLIST_FIELDS);
+        return toSparse(productProjectionRepo.findWatchlistProducts(uid, requested), requested);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getUserSaveForLater(String uid, String fields) {
+        Set<ProductField> requested = ProductField.parse(fields, SAVE_FOR_LATER_FIELDS);
+        return toSparse(productProjectionRepo.findSaveForLaterProducts(uid, requested), requested);
+    }
+
+    @Transactional(readOnly = true)
+    public Map<String, Object> getUser(String uid, String fields) {
+        Set<ProductField> requested = ProductField.parse(fields, PROFILE_FIELDS);
+        if (!userRepo.existsByUid(uid)) {
+            throw new UsernameNotFoundException("User not found with uid: " + uid);
+        }
+
+        // The save-for-later list has no best offer; it just gets the remaining fields
+        Set<ProductField> saveForLater = EnumSet.copyOf(requested);
+        saveForLater.retainAll(SAVE_FOR_LATER_FIELDS);
+
+        Map<String, Object> profile = new LinkedHashMap<>();
+        profile.put("watchList", toSparse(productProjectionRepo.findWatchlistProducts(uid, requested), requested));
+        profile.put("saveForLater", saveForLater.isEmpty() ? List.of()
+                : toSparse(productProjectionRepo.findSaveForLaterProducts(uid, saveForLater), saveForLater));
+        return profile;
+    }
+
+    private List<Map<String, Object>> toSparse(List<Map<String, Object>> rows, Set<ProductField> fields) {
+        List<Map<String, Object>> result = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            for (ProductField field : fields) {
+                item.put(field.jsonName(), field == ProductField.BEST_OFFER
+                        ? bestOfferService.bestOffer((Integer) row.get("p.pid"), (String) row.get("p.name"),
+                                (String) row.get("p.platform"), (String) row.get("p.deepLink"),
+                                (Double) row.get("p.currentPrice"))
+                        : row.get(field.columns().get(0)));
+            }
+            result.add(item);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.dealspy.service;
+
+import com.example.dealspy.common.TransactionCallbacks;
+import com.example.dealspy.dto.ProductSearchResultDTO;
+import com.example.dealspy.index.ProductSearchIndex;
+import com.example.dealspy.model.Product;
+import com.example.dealspy.repo.ProductRepo;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSearchService {
+
+    private final ProductRepo productRepo;
+    private final ProductCounterService productCounterService;
+
+    private final ProductSearchIndex index = new ProductSearchIndex(this::popularity);
+
+    @PostConstruct
+    void followPopularity() {
+        productCounterService.onChange(index::popularityChanged);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void build() {
+        long start = System.currentTimeMillis();
+        // insertIfAbsent: a product written while we stream keeps its newer, incrementally indexed state
+        try (Stream<Object[]> rows = productRepo.streamSearchFields()) {
+            rows.forEach(row -> index.insertIfAbsent(new ProductSearchIndex.Entry(
+                    (Integer) row[0], (String) row[1], (String) row[2], (String) row[3],
+                    (String) row[4], (String) row[5], (Double) row[6])));
+        }
+        log.info("Product search index built with {} products in {} ms",
+                index.size(), System.currentTimeMillis() - start);
+    }
+
+    public List<ProductSearchResultDTO> search(String query, int limit) {
+        return index.search(query, limit).stream()
+                .map(e -> new ProductSearchResultDTO(
+                        e.name(), e.brand(), e.platform(), e.imageUrl(), e.deepLink(), e.price()))
+                .toList();
+    }
+
+    public void index(Product product) {
+        ProductSearchIndex.Entry entry = new ProductSearchIndex.Entry(
+                product.getPid(), product.getName(), product.getBrand(), product.getPlatform(),
+                product.getImageUrl(), product.getDeepLink(), product.getCurrentPrice());
+        TransactionCallbacks.afterCommit(() -> index.upsert(entry));
+    }
+
+    public void remove(Integer pid) {
+        TransactionCallbacks.afterCommit(() -> index.remove(pid));
+    }
+
+    private int popularity(int pid) {
+        return productCounterService.watcherCount(pid) + productCounterService.saverCount(pid);
+    }
+}
@@ -1,29 +1,49 @@
 package com.example.dealspy.service;
 
+import com.example.dealspy.common.TransactionCallbacks;
+import com.example.dealspy.fastapi.FastApiClient;
 import com.example.dealspy.model.Product;
+import com.example.dealspy.repo.ProductPriceRepo;
 import com.example.dealspy.repo.ProductRepo;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.reactive.function.client.WebClient;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class ProductService {
 
+    // Bounds the IN list when reloading the rows a bulk apply wrote
+    private static final int RELOAD_BATCH_SIZE = 1000;
+
     private final ProductRepo productRepo;
+    private final ProductPriceRepo productPriceRepo;
     private final NotificationService notificationService;
-    private final WebClient.Builder webClientBuilder;
+    private final PriceRefreshScheduler priceRefreshScheduler;
+    private final ProductSearchService productSearchService;
+    private final BestOfferService bestOfferService;
+    private final DealsFeedService dealsFeedService;
+    private final PriceStreamService priceStreamService;
+    private final FastApiClient fastApiClient;
+    private final MeterRegistry meterRegistry;
 
-    @Value("${dealspy.fastapi.base-url}")
-    private String fastApiBaseUrl;
+    // FastAPI answers the full update only once every product is refreshed
+    @Value("${dealspy.fastapi.full-update-timeout-ms:300000}")
+    private long fullUpdateTimeoutMs;
 
 
     public Optional<Product> getProductByName(String productName) {
@@ -59,10 +79,12 @@ public class ProductService {
         }
 
         String trimmedName = productName.trim();
-        Optional<Product> existingOpt = productRepo.findByName(trimmedName);
+        Optional<Product> existingOpt = productRepo.lockByName(trimmedName);
 
         if (existingOpt.isPresent()) {
             Product existing = existingOpt.get();
+            Double previousPrice = existing.getCurrentPrice();
+            List<Object> before = clientFields(existing);
 
             if (brand != null && !brand.trim().isEmpty()) {
                 existing.setBrand(brand.trim());
@@ -87,8 +109,16 @@ public class ProductService {
                 existing.setIsPriceDropped(false);
             }
 
+            meterRegistry.counter("dealspy.products.upserts",
+                    "outcome", before.equals(clientFields(existing)) ? "hit" : "update").increment();
+
             log.debug("Updated existing product from client data: {}", trimmedName);
-            return productRepo.save(existing);
+            Product saved = productRepo.save(existing);
+            productSearchService.index(saved);
+            bestOfferService.update(saved);
+            dealsFeedService.update(saved);
+            priceStreamService.publishPriceChange(saved, previousPrice);
+            return saved;
         }
 
         Product p = new Product();
@@ -108,16 +138,24 @@ public class ProductService {
         p.setIsPriceDropped(false);
 
         log.info("Creating new product from client data: {}", trimmedName);
-        return productRepo.save(p);
+        meterRegistry.counter("dealspy.products.upserts", "outcome", "insert").increment();
+        Product saved = productRepo.save(p);
+        productSearchService.index(saved);
+        // A product can arrive already below its last known lowest price
+        bestOfferService.update(saved);
+        dealsFeedService.update(saved);
+        TransactionCallbacks.afterCommit(() -> priceRefreshScheduler.track(saved.getPid(), saved.getCurrentPrice()));
+        return saved;
     }
 
-    public void sendDropNotifications() {
-        List<Product> allProducts = productRepo.findAll();
+    // The fields findOrCreateProduct may overwrite; unchanged means the client re-sent what we had
+    private static List<Object> clientFields(Product product) {
+        return Arrays.asList(product.getBrand(), product.getPlatform(), product.getImageUrl(),
+                product.getDeepLink(), product.getCurrentPrice(), product.getLastLowestPrice());
+    }
 
-        List<Product> dropped = allProducts.stream()
-                .filter(p -> Boolean.TRUE.equals(p.getIsPriceDropped()))
-                .filter(p -> p.getCurrentPrice() != null)
-                .toList();
+    public void sendDropNotifications() {
+        List<Product> dropped = productRepo.findDroppedProducts();
 
         log.info("Sending price drop notifications for {} products", dropped.size());
 
@@ -139,24 +177,47 @@ public class ProductService {
         }
     }
 
-    public void scheduledPriceUpdate() {
-        WebClient client = webClientBuilder.baseUrl(fastApiBaseUrl).build();
-
-        try {
-            log.info("Triggering FastAPI price update...");
-
-            client.post()
-                    .uri("/v1/update/prices")
-                    .retrieve()
-                    .bodyToMono(Void.class)
-                    .block();
-
-            log.info("FastAPI price update completed. Now sending price drop notifications...");
-            sendDropNotifications();
+    /**
+     * Applies a full set of refreshed prices in one COPY and one UPDATE (see {@link ProductPriceRepo}).
+     * The written rows are then reloaded into search, best offers, the deals feed and live streams,
+     * and the products this apply flagged as drops are announced. Nothing calls this yet: FastAPI's
+     * full update writes the table itself, this is for a source that hands the prices over.
+     */
+    public ProductPriceRepo.Applied applyPrices(Map<Integer, Double> prices) {
+        long start = System.currentTimeMillis();
+        ProductPriceRepo.Applied applied = productPriceRepo.apply(prices);
+        meterRegistry.counter("dealspy.products.prices.applied").increment(applied.updated());
+        log.info("Applied {} prices ({} rows changed, {} drops) in {} ms", prices.size(), applied.updated(),
+                applied.droppedPids().size(), System.currentTimeMillis() - start);
+
+        Set<Integer> dropped = new HashSet<>(applied.droppedPids());
+        List<Integer> changed = new ArrayList<>(applied.previousPrices().keySet());
+        for (int from = 0; from < changed.size(); from += RELOAD_BATCH_SIZE) {
+            List<Integer> batch = changed.subList(from, Math.min(from + RELOAD_BATCH_SIZE, changed.size()));
+            for (Product product : productRepo.findAllById(batch)) {
+                productSearchService.index(product);
+                bestOfferService.update(product);
+                dealsFeedService.update(product);
+                priceStreamService.publishPriceChange(product, applied.previousPrices().get(product.getPid()));
+                if (dropped.contains(product.getPid()) && NotificationService.isNotifiableDrop(product)) {
+                    TransactionCallbacks.afterCommit(() -> notificationService.notifyPriceDropAsync(
+                            product.getPid(), product.getName(), product.getCurrentPrice()));
+                }
+            }
+        }
+        return applied;
+    }
 
-        } catch (Exception e) {
-            log.error("Error during scheduled price update / FastAPI call: {}", e.getMessage(), e);
+    public void scheduledPriceUpdate() {
+        log.info("Triggering FastAPI price update...");
+        if (!fastApiClient.post("/v1/update/prices", null, Duration.ofMillis(fullUpdateTimeoutMs))) {
+            // Nothing was refreshed, so there are no new drops to announce
+            log.warn("FastAPI price update did not complete, skipping price drop notifications");
+            return;
         }
+
+        log.info("FastAPI price update completed. Now sending price drop notifications...");
+        sendDropNotifications();
     }
 
 }
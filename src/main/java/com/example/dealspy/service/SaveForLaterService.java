@@ -33,9 +33,13 @@ public class SaveForLaterService {
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private ProductCounterService productCounterService;
+
 
+    @Transactional(readOnly = true)
     public List<SaveForLaterDTO> getUserSaveForLater(String uid) {
-        User user = userRepo.findById(uid)
+        User user = userRepo.findByUid(uid)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + uid));
 
         log.debug("Fetching save-for-later items for user: {}", uid);
@@ -60,7 +64,7 @@ public class SaveForLaterService {
         try {
             log.info("Adding to save for later - User: {}, Product: {}", uid, dto.getProductName());
 
-            User user = userRepo.findById(uid)
+            User user = userRepo.findByUid(uid)
                     .orElseThrow(() -> new UsernameNotFoundException("User not found: " + uid));
 
 
@@ -87,6 +91,7 @@ public class SaveForLaterService {
             saveForLater.setProduct(product);
 
             saveForLaterRepo.save(saveForLater);
+            productCounterService.saverAdded(product.getPid());
 
             log.info("Successfully added to save for later - User: {}, Product: {} (PID: {})",
                     uid, dto.getProductName(), product.getPid());
@@ -109,16 +114,19 @@ public class SaveForLaterService {
 
         log.info("Removing from save for later - User: {}, Product: {}", uid, productName);
 
+        Long userId = userRepo.findIdByUid(uid)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + uid));
         Product product = productService.getProductByName(productName)
                 .orElseThrow(() -> new EntityNotFoundException("Product not found: " + productName));
 
-        int deletedCount = saveForLaterRepo.deleteByUserUidAndProductPid(uid, product.getPid());
+        int deletedCount = saveForLaterRepo.deleteByUserIdAndProductPid(userId, product.getPid());
 
         if (deletedCount == 0) {
             throw new EntityNotFoundException(
                     String.format("No save-for-later entry found for user %s and product %s (PID: %d)",
                             uid, productName, product.getPid()));
         }
+        productCounterService.saverRemoved(product.getPid());
 
         log.info("Successfully removed from save for later - User: {}, Product: {} (PID: {})",
                 uid, productName, product.getPid());
@@ -0,0 +1,147 @@
+package com.example.dealspy.service;
+
+import com.example.dealspy.common.TransactionCallbacks;
+import com.example.dealspy.index.WatcherIndex;
+import com.example.dealspy.repo.IdempotencyKeyRepo;
+import com.example.dealspy.repo.UserDeletionRepo;
+import com.example.dealspy.repo.UserDeletionRepo.Association;
+import com.example.dealspy.repo.UserDeletionRepo.Progress;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Deletes accounts in the background. A request only anonymizes the users row and queues it, so
+ * DELETE /profile is a couple of single-row statements; a worker thread then removes the user's
+ * watchlist and save-for-later rows a bounded chunk per transaction (keyset on pid, with a pause
+ * in between) and finally the users row. Progress is stored with every chunk, so a node that
+ * dies mid-way leaves the rest to the periodic sweep on any node.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UserDeletionService {
+
+    private final UserDeletionRepo userDeletionRepo;
+    private final IdempotencyKeyRepo idempotencyKeyRepo;
+    private final WatcherIndex watcherIndex;
+    private final ProductCounterService productCounterService;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${dealspy.deletion.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${dealspy.deletion.pause-ms:20}")
+    private long pauseMs;
+
+    @Value("${dealspy.deletion.users-per-run:20}")
+    private int usersPerRun;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicBoolean wakeRequested = new AtomicBoolean();
+    private ExecutorService worker;
+
+    @PostConstruct
+    void init() {
+        worker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "user-deletion");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        worker.shutdownNow();
+    }
+
+    /** Part of the caller's transaction; the worker starts once it commits. */
+    public void requestDeletion(long userId, String uid) {
+        userDeletionRepo.tombstone(userId);
+        idempotencyKeyRepo.deleteByUid(uid);
+        watcherIndex.removeUser(uid);
+        TransactionCallbacks.afterCommit(this::wake);
+    }
+
+    // Picks up deletions whose node died, and any wake-up that raced with the end of a run
+    @Scheduled(fixedDelayString = "${dealspy.deletion.sweep-interval-ms:60000}")
+    public void wake() {
+        wakeRequested.set(true);
+        if (running.compareAndSet(false, true)) {
+            worker.execute(this::runWhileRequested);
+        }
+    }
+
+    private void runWhileRequested() {
+        try {
+            while (wakeRequested.getAndSet(false)) {
+                for (Long userId : userDeletionRepo.findPending(usersPerRun)) {
+                    try {
+                        delete(userId);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    } catch (RuntimeException e) {
+                        log.error("Deleting user {} failed, will retry: {}", userId, e.getMessage(), e);
+                    }
+                }
+            }
+        } finally {
+            running.set(false);
+        }
+    }
+
+    void delete(long userId) throws InterruptedException {
+        Optional<Progress> progress = userDeletionRepo.findProgress(userId);
+        if (progress.isEmpty()) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        long deleted = progress.get().rowsDeleted();
+        deleted += deleteAll(Association.WATCHLIST, userId, progress.get().cursor(Association.WATCHLIST));
+        deleted += deleteAll(Association.SAVE_FOR_LATER, userId, progress.get().cursor(Association.SAVE_FOR_LATER));
+        transactionTemplate.executeWithoutResult(status -> userDeletionRepo.finish(userId));
+        log.info("User {} deleted: {} rows removed ({} ms this run)", userId, deleted, System.currentTimeMillis() - start);
+    }
+
+    private long deleteAll(Association association, long userId, int cursor) throws InterruptedException {
+        long total = 0;
+        while (true) {
+            int after = cursor;
+            List<Integer> pids = transactionTemplate.execute(status -> {
+                List<Integer> removed = userDeletionRepo.deleteChunk(association, userId, after, chunkSize);
+                if (!removed.isEmpty()) {
+                    userDeletionRepo.advance(association, userId, removed.get(removed.size() - 1), removed.size());
+                    removed.forEach(association == Association.WATCHLIST
+                            ? productCounterService::watcherRemoved
+                            : productCounterService::saverRemoved);
+                }
+                return removed;
+            });
+            if (pids == null || pids.isEmpty()) {
+                return total;
+            }
+            total += pids.size();
+            cursor = pids.get(pids.size() - 1);
+            meterRegistry.counter("dealspy.users.deletion.rows", "table", association.name().toLowerCase())
+                    .increment(pids.size());
+            if (pids.size() < chunkSize) {
+                return total;
+            }
+            Thread.sleep(pauseMs);
+        }
+    }
+}
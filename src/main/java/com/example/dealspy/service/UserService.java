@@ -32,17 +32,27 @@ public class UserService {
     private WatchlistMapper watchlistMapper;
     @Autowired
     private SaveForLaterMapper saveForLaterMapper;
+    @Autowired
+    private UserDeletionService userDeletionService;
+    @Autowired
+    private BestOfferService bestOfferService;
 
 
 
+    @Transactional(readOnly = true)
     public UserDetailDTO getUser(String uid) {
-        User user = userRepo.findById(uid)
+        User user = userRepo.findByUid(uid)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with uid: " + uid));
 
 
-        List<WatchlistDTO> watchlistDTOs = watchlistMapper.toDTOList(
-                watchListRepo.findByUser(user)
-        );
+        List<WatchlistDTO> watchlistDTOs = watchListRepo.findByUser(user)
+                .stream()
+                .map(watchlist -> {
+                    WatchlistDTO dto = watchlistMapper.toDTO(watchlist);
+                    dto.setBestOffer(bestOfferService.bestOffer(watchlist.getProduct()));
+                    return dto;
+                })
+                .toList();
 
         List<SaveForLaterDTO> saveForLaterDTOs = saveForLaterMapper.toDTOList(
                 saveForLaterRepo.findByUser(user)
@@ -54,11 +64,22 @@ public class UserService {
         return new UserDetailDTO(watchlistDTOs, saveForLaterDTOs);
     }
 
+    /** Registers a user on first sign-in, or refreshes the FCM token of a known one. */
+    public void syncVerifiedUser(String uid, String email, String name, String fcmToken) {
+        if (!isUserExist(uid)) {
+            addUserDetails(uid, email, name, fcmToken);
+            log.info("New user saved: {}", uid);
+        } else if (fcmToken != null && !fcmToken.isEmpty()) {
+            updateUserFcmToken(uid, fcmToken);
+            log.info("FCM token updated for: {}", uid);
+        }
+    }
+
     public Boolean isUserExist(String uid) {
         if (uid == null || uid.trim().isEmpty()) {
             return false;
         }
-        return userRepo.existsById(uid);
+        return userRepo.existsByUid(uid);
     }
 
     @Transactional
@@ -72,7 +93,7 @@ public class UserService {
         if (name == null || name.trim().isEmpty()) {
             throw new IllegalArgumentException("User name cannot be null or empty");
         }
-        User user = userRepo.findById(uid).orElse(new User());
+        User user = userRepo.findByUid(uid).orElse(new User());
 
         user.setUid(uid);
         user.setName(name.trim());
@@ -98,7 +119,7 @@ public class UserService {
             return false;
         }
 
-        Optional<User> userOpt = userRepo.findById(uid);
+        Optional<User> userOpt = userRepo.findByUid(uid);
         if (userOpt.isPresent()) {
             User user = userOpt.get();
             user.setFcmToken(fcmToken.trim());
@@ -112,18 +133,18 @@ public class UserService {
     }
 
 
+    // The account is gone for the user as soon as this commits; its watchlist and save-for-later
+    // rows are removed in the background (UserDeletionService)
     @Transactional
     public boolean deleteUser(String uid) {
         try {
-            Optional<User> userOptional = userRepo.findByUid(uid);
-
-            if (userOptional.isPresent()) {
-                User user = userOptional.get();
+            Optional<Long> userId = userRepo.findIdByUid(uid);
 
-                log.info("Deleting user profile: UID={}, Email={}", uid, user.getEmail());
+            if (userId.isPresent()) {
+                log.info("Deleting user profile: UID={}, ID={}", uid, userId.get());
 
-                userRepo.delete(user);
-                log.info("User profile deleted successfully: UID={}", uid);
+                userDeletionService.requestDeletion(userId.get(), uid);
+                log.info("User profile deletion queued: UID={}", uid);
 
                 return true;
             } else {
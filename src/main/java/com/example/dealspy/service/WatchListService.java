@@ -2,6 +2,7 @@ package com.example.dealspy.service;
 
 import com.example.dealspy.dto.WatchlistDTO;
 import com.example.dealspy.dto.WatchlistResponseDTO;
+import com.example.dealspy.index.WatcherIndex;
 import com.example.dealspy.mapper.WatchlistMapper;
 import com.example.dealspy.model.Product;
 import com.example.dealspy.model.User;
@@ -33,15 +34,29 @@ public class WatchListService {
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private WatcherIndex watcherIndex;
+
+    @Autowired
+    private ProductCounterService productCounterService;
+
+    @Autowired
+    private BestOfferService bestOfferService;
+
+    @Transactional(readOnly = true)
     public List<WatchlistResponseDTO> getUserWatchList(String uid) {
-        User user = userRepo.findById(uid)
+        User user = userRepo.findByUid(uid)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + uid));
 
         log.debug("Fetching watchlist items for user: {}", uid);
 
         return watchListRepo.findByUser(user)
                 .stream()
-                .map(mapper::toResponseDTO)
+                .map(watchlist -> {
+                    WatchlistResponseDTO dto = mapper.toResponseDTO(watchlist);
+                    dto.setBestOffer(bestOfferService.bestOffer(watchlist.getProduct()));
+                    return dto;
+                })
                 .toList();
     }
 
@@ -59,7 +74,7 @@ public class WatchListService {
                     uid, watchlistDTO.getProductName());
 
 
-            User user = userRepo.findById(uid)
+            User user = userRepo.findByUid(uid)
                     .orElseThrow(() -> new UsernameNotFoundException("User not found: " + uid));
 
             Product product = productService.findOrCreateProduct(
@@ -82,6 +97,8 @@ public class WatchListService {
             watchlist.setProduct(product);
 
             watchListRepo.save(watchlist);
+            watcherIndex.addWatcher(uid, product.getPid());
+            productCounterService.watcherAdded(product.getPid());
 
             log.info("Successfully added to watchlist - User: {}, Product: {} (PID: {})",
                     uid, watchlistDTO.getProductName(), product.getPid());
@@ -104,16 +121,20 @@ public class WatchListService {
 
         log.info("Removing from watchlist - User: {}, Product: {}", uid, productName);
 
+        Long userId = userRepo.findIdByUid(uid)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + uid));
         Product product = productService.getProductByName(productName)
                 .orElseThrow(() -> new EntityNotFoundException("Product not found: " + productName));
 
-        int deletedCount = watchListRepo.deleteByUserUidAndProductPid(uid, product.getPid());
+        int deletedCount = watchListRepo.deleteByUserIdAndProductPid(userId, product.getPid());
 
         if (deletedCount == 0) {
             throw new EntityNotFoundException(
                     String.format("No watchlist entry found for user %s and product %s (PID: %d)",
                             uid, productName, product.getPid()));
         }
+        watcherIndex.removeWatcher(uid, product.getPid());
+        productCounterService.watcherRemoved(product.getPid());
 
         log.info("Successfully removed from watchlist - User: {}, Product: {} (PID: {})",
                 uid, productName, product.getPid());
@@ -127,7 +148,14 @@ public class WatchListService {
 
         log.info("Clearing all watchlist items for user: {}", uid);
 
-        int deletedCount = watchListRepo.deleteByUserUid(uid);
+        Long userId = userRepo.findIdByUid(uid).orElse(null);
+        int deletedCount = 0;
+        if (userId != null) {
+            List<Integer> pids = watchListRepo.findProductIdsByUserId(userId);
+            deletedCount = watchListRepo.deleteByUserId(userId);
+            pids.forEach(productCounterService::watcherRemoved);
+        }
+        watcherIndex.removeUser(uid);
 
         log.info("Cleared {} watchlist items for user: {}", deletedCount, uid);
     }
@@ -0,0 +1,262 @@
+package com.example.dealspy.stream;
+
+import com.example.dealspy.dto.PriceUpdateDTO;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process fan-out of price updates to connected users. Each subscriber has a bounded buffer
+ * that coalesces by product, so a client only ever needs the latest price per product; when a slow
+ * client still falls behind by more than the buffer, its oldest updates are dropped instead of
+ * growing memory or blocking publishers. At most one drain per subscriber runs on the shared
+ * executor, and connections are capped per node and per user. A client that stops reading would
+ * otherwise pin a sender thread in its blocked write; {@link #evictStalled()} disconnects any
+ * subscriber whose send has outlived the deadline and interrupts the thread stuck in it.
+ */
+public class PriceUpdateHub {
+
+    /** Transport for one connection. Calls for a given subscriber never overlap. */
+    public interface Sink {
+        void send(List<PriceUpdateDTO> updates) throws Exception;
+
+        void heartbeat() throws Exception;
+
+        void close();
+    }
+
+    private final int maxConnections;
+    private final int maxConnectionsPerUser;
+    private final int bufferSize;
+    private final long sendTimeoutNanos;
+    private final Executor executor;
+
+    private final Map<String, Set<Subscriber>> subscribersByUid = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final LongAdder droppedUpdates = new LongAdder();
+    private final LongAdder stalledEvictions = new LongAdder();
+
+    public PriceUpdateHub(int maxConnections, int maxConnectionsPerUser, int bufferSize, long sendTimeoutMs,
+                          Executor executor) {
+        this.maxConnections = maxConnections;
+        this.maxConnectionsPerUser = maxConnectionsPerUser;
+        this.bufferSize = bufferSize;
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        this.executor = executor;
+    }
+
+    /** Returns null when the node or the user is already at its connection limit. */
+    public Subscriber subscribe(String uid, Sink sink) {
+        if (connections.incrementAndGet() > maxConnections) {
+            connections.decrementAndGet();
+            return null;
+        }
+
+        Subscriber subscriber = new Subscriber(uid, sink);
+        boolean[] accepted = {false};
+        subscribersByUid.compute(uid, (key, current) -> {
+            Set<Subscriber> subscribers = current != null ? current : ConcurrentHashMap.newKeySet();
+            if (subscribers.size() < maxConnectionsPerUser) {
+                subscribers.add(subscriber);
+                accepted[0] = true;
+            }
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+        if (!accepted[0]) {
+            connections.decrementAndGet();
+            return null;
+        }
+        return subscriber;
+    }
+
+    public void unsubscribe(Subscriber subscriber) {
+        if (!subscriber.closed.compareAndSet(false, true)) {
+            return;
+        }
+        subscribersByUid.computeIfPresent(subscriber.uid, (key, subscribers) -> {
+            subscribers.remove(subscriber);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+        connections.decrementAndGet();
+    }
+
+    public void publish(String uid, PriceUpdateDTO update) {
+        Set<Subscriber> subscribers = subscribersByUid.get(uid);
+        if (subscribers != null) {
+            subscribers.forEach(subscriber -> subscriber.offer(update));
+        }
+    }
+
+    public void heartbeat() {
+        subscribersByUid.values().forEach(subscribers -> subscribers.forEach(Subscriber::offerHeartbeat));
+    }
+
+    /** Disconnects every subscriber whose current send or heartbeat started more than the send timeout ago. */
+    public void evictStalled() {
+        long now = System.nanoTime();
+        subscribersByUid.values().forEach(subscribers -> subscribers.forEach(subscriber -> subscriber.evictIfStalled(now)));
+    }
+
+    public Set<String> connectedUids() {
+        return subscribersByUid.keySet();
+    }
+
+    public int connectedUsers() {
+        return subscribersByUid.size();
+    }
+
+    public int connections() {
+        return connections.get();
+    }
+
+    public long droppedUpdates() {
+        return droppedUpdates.sum();
+    }
+
+    public long stalledEvictions() {
+        return stalledEvictions.sum();
+    }
+
+    public final class Subscriber {
+        private final String uid;
+        private final Sink sink;
+        private final LinkedHashMap<String, PriceUpdateDTO> pending = new LinkedHashMap<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private boolean heartbeatPending;
+        // The thread inside sink.send/heartbeat and when it got there; guarded by this
+        private Thread sender;
+        private long sendStartedNanos;
+        private boolean stalled;
+
+        private Subscriber(String uid, Sink sink) {
+            this.uid = uid;
+            this.sink = sink;
+        }
+
+        public String uid() {
+            return uid;
+        }
+
+        private void offer(PriceUpdateDTO update) {
+            synchronized (this) {
+                if (closed.get()) {
+                    return;
+                }
+                // Re-inserted so the product moves to the back of the queue with its newest price
+                pending.remove(update.getProductName());
+                pending.put(update.getProductName(), update);
+                if (pending.size() > bufferSize) {
+                    Iterator<PriceUpdateDTO> oldest = pending.values().iterator();
+                    oldest.next();
+                    oldest.remove();
+                    droppedUpdates.increment();
+                }
+            }
+            scheduleDrain();
+        }
+
+        private void offerHeartbeat() {
+            synchronized (this) {
+                if (closed.get()) {
+                    return;
+                }
+                heartbeatPending = true;
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this::drain);
+                } catch (RuntimeException e) {
+                    draining.set(false);
+                    fail();
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                while (true) {
+                    List<PriceUpdateDTO> updates;
+                    boolean heartbeat;
+                    synchronized (this) {
+                        if (closed.get() || (pending.isEmpty() && !heartbeatPending)) {
+                            // Cleared under the lock, so an offer racing with this either lands in
+                            // this loop or starts the next drain
+                            draining.set(false);
+                            return;
+                        }
+                        updates = new ArrayList<>(pending.values());
+                        pending.clear();
+                        heartbeat = heartbeatPending;
+                        heartbeatPending = false;
+                        sender = Thread.currentThread();
+                        sendStartedNanos = System.nanoTime();
+                    }
+
+                    try {
+                        if (!updates.isEmpty()) {
+                            sink.send(updates);
+                        } else if (heartbeat) {
+                            sink.heartbeat();
+                        }
+                    } finally {
+                        endSend();
+                    }
+                }
+            } catch (Exception e) {
+                draining.set(false);
+                fail();
+            }
+        }
+
+        // Fails the drain if the subscriber was evicted mid-send, even when the send went through in the end
+        private void endSend() throws InterruptedException {
+            synchronized (this) {
+                sender = null;
+                if (!stalled) {
+                    return;
+                }
+            }
+            // Don't hand the interrupt back to the pool with the thread
+            Thread.interrupted();
+            throw new InterruptedException("Send to " + uid + " exceeded the send timeout");
+        }
+
+        // The interrupt happens under the lock while sender is set, so it never hits another subscriber's send.
+        // Counting and unsubscribing come first, so both are visible by the time the drain closes the sink;
+        // closing it from here could block on the transport lock the stuck send is holding
+        private void evictIfStalled(long now) {
+            synchronized (this) {
+                if (sender == null || stalled || now - sendStartedNanos < sendTimeoutNanos) {
+                    return;
+                }
+                stalled = true;
+                stalledEvictions.increment();
+                unsubscribe(this);
+                sender.interrupt();
+            }
+        }
+
+        private void fail() {
+            unsubscribe(this);
+            synchronized (this) {
+                pending.clear();
+            }
+            sink.close();
+        }
+    }
+}
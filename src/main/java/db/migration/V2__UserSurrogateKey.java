@@ -0,0 +1,124 @@
+package db.migration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Replaces the Firebase uid as the users primary key with a bigint surrogate and moves both
+ * association tables onto it. Backfills are committed in small batches so no single transaction
+ * holds row locks on a whole table, and they only touch rows that are still unfilled, so an
+ * interrupted run can be repaired and resumed. The key swap itself is one short transaction.
+ */
+@Slf4j
+public class V2__UserSurrogateKey extends BaseJavaMigration {
+
+    private static final int BATCH_SIZE = 5_000;
+    private static final String[] ASSOCIATION_TABLES = {"user_product_watchlist", "user_product_save_for_later"};
+
+    @Override
+    public boolean canExecuteInTransaction() {
+        return false;
+    }
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            addColumns(connection);
+            backfillUserIds(connection);
+            for (String table : ASSOCIATION_TABLES) {
+                backfillAssociation(connection, table);
+            }
+            swapKeys(connection);
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private void addColumns(Connection connection) throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            st.execute("ALTER TABLE users ADD COLUMN IF NOT EXISTS id BIGINT");
+            st.execute("CREATE SEQUENCE IF NOT EXISTS users_id_backfill_seq AS BIGINT");
+            for (String table : ASSOCIATION_TABLES) {
+                st.execute("ALTER TABLE " + table + " ADD COLUMN IF NOT EXISTS user_id BIGINT");
+            }
+        }
+        connection.commit();
+    }
+
+    private void backfillUserIds(Connection connection) throws SQLException {
+        String sql = "UPDATE users SET id = nextval('users_id_backfill_seq') " +
+                "WHERE uid IN (SELECT uid FROM users WHERE id IS NULL ORDER BY uid LIMIT ?)";
+        long total = 0;
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setInt(1, BATCH_SIZE);
+            int updated;
+            do {
+                updated = ps.executeUpdate();
+                connection.commit();
+                total += updated;
+            } while (updated > 0);
+        }
+        log.info("Backfilled surrogate ids for {} users", total);
+    }
+
+    private void backfillAssociation(Connection connection, String table) throws SQLException {
+        long maxId;
+        try (Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery("SELECT COALESCE(MAX(id), 0) FROM " + table)) {
+            rs.next();
+            maxId = rs.getLong(1);
+        }
+
+        String sql = "UPDATE " + table + " t SET user_id = u.id FROM users u " +
+                "WHERE t.uid = u.uid AND t.user_id IS NULL AND t.id > ? AND t.id <= ?";
+        long total = 0;
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            for (long from = 0; from < maxId; from += BATCH_SIZE) {
+                ps.setLong(1, from);
+                ps.setLong(2, from + BATCH_SIZE);
+                total += ps.executeUpdate();
+                connection.commit();
+            }
+        }
+        log.info("Backfilled user_id for {} rows in {}", total, table);
+    }
+
+    private void swapKeys(Connection connection) throws SQLException {
+        long nextId;
+        try (Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery("SELECT COALESCE(MAX(id), 0) + 1 FROM users")) {
+            rs.next();
+            nextId = rs.getLong(1);
+        }
+
+        try (Statement st = connection.createStatement()) {
+            st.execute("ALTER TABLE users ALTER COLUMN id SET NOT NULL");
+            st.execute("ALTER TABLE users ALTER COLUMN uid SET NOT NULL");
+            // CASCADE drops the uid foreign keys of both association tables
+            st.execute("ALTER TABLE users DROP CONSTRAINT users_pkey CASCADE");
+            st.execute("ALTER TABLE users ADD CONSTRAINT users_pkey PRIMARY KEY (id)");
+            st.execute("ALTER TABLE users ADD CONSTRAINT uk_users_uid UNIQUE (uid)");
+            st.execute("ALTER TABLE users ALTER COLUMN id ADD GENERATED BY DEFAULT AS IDENTITY (START WITH " + nextId + ")");
+            st.execute("DROP SEQUENCE users_id_backfill_seq");
+
+            for (String table : ASSOCIATION_TABLES) {
+                // Dropping uid also drops the old (uid, pid) unique constraint
+                st.execute("ALTER TABLE " + table + " DROP COLUMN uid");
+                st.execute("ALTER TABLE " + table + " ADD CONSTRAINT uk_" + table + "_user_pid UNIQUE (user_id, pid)");
+                st.execute("ALTER TABLE " + table + " ADD CONSTRAINT fk_" + table + "_user " +
+                        "FOREIGN KEY (user_id) REFERENCES users (id)");
+            }
+        }
+        connection.commit();
+    }
+}
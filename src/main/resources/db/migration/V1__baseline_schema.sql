@@ -0,0 +1,44 @@
+-- Schema as previously generated by Hibernate (ddl-auto=create)
+
+CREATE TABLE product (
+    pid               INTEGER GENERATED BY DEFAULT AS IDENTITY,
+    name              VARCHAR(255) NOT NULL,
+    brand             VARCHAR(255),
+    platform          VARCHAR(255),
+    current_price     DOUBLE PRECISION,
+    last_lowest_price DOUBLE PRECISION,
+    is_price_dropped  BOOLEAN,
+    image_url         VARCHAR(255),
+    deep_link         VARCHAR(255),
+    CONSTRAINT product_pkey PRIMARY KEY (pid),
+    CONSTRAINT uk_product_name UNIQUE (name)
+);
+
+CREATE TABLE users (
+    uid       VARCHAR(255) NOT NULL,
+    email     VARCHAR(255) NOT NULL,
+    name      VARCHAR(255),
+    fcm_token VARCHAR(255),
+    CONSTRAINT users_pkey PRIMARY KEY (uid),
+    CONSTRAINT uk_users_email UNIQUE (email)
+);
+
+CREATE TABLE user_product_watchlist (
+    id  BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    uid VARCHAR(255),
+    pid INTEGER,
+    CONSTRAINT user_product_watchlist_pkey PRIMARY KEY (id),
+    CONSTRAINT uk_watchlist_uid_pid UNIQUE (uid, pid),
+    CONSTRAINT fk_watchlist_user FOREIGN KEY (uid) REFERENCES users (uid),
+    CONSTRAINT fk_watchlist_product FOREIGN KEY (pid) REFERENCES product (pid)
+);
+
+CREATE TABLE user_product_save_for_later (
+    id  BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    uid VARCHAR(255),
+    pid INTEGER,
+    CONSTRAINT user_product_save_for_later_pkey PRIMARY KEY (id),
+    CONSTRAINT uk_save_for_later_uid_pid UNIQUE (uid, pid),
+    CONSTRAINT fk_save_for_later_user FOREIGN KEY (uid) REFERENCES users (uid),
+    CONSTRAINT fk_save_for_later_product FOREIGN KEY (pid) REFERENCES product (pid)
+);
@@ -0,0 +1,17 @@
+-- Indexes for the hot repository queries. (user_id, pid) lookups are already covered by the
+-- unique constraints; these cover the pid side and the price-drop scan.
+-- Not CONCURRENTLY: Flyway keeps a transaction open on its own connection while migrating,
+-- which a concurrent build would wait on forever. The tables are small enough to lock briefly.
+
+-- WatchListRepo.findUsersByProductId (notification fan-out)
+CREATE INDEX IF NOT EXISTS idx_watchlist_pid
+    ON user_product_watchlist (pid);
+
+-- Product deletes / reference checks from the save-for-later side
+CREATE INDEX IF NOT EXISTS idx_save_for_later_pid
+    ON user_product_save_for_later (pid);
+
+-- ProductRepo.findDroppedProducts: only the handful of rows flagged after a price run
+CREATE INDEX IF NOT EXISTS idx_product_price_dropped
+    ON product (pid)
+    WHERE is_price_dropped = TRUE;
@@ -0,0 +1,13 @@
+-- Per-product watcher / saver counters, maintained by ProductCounterService.
+ALTER TABLE product ADD COLUMN watcher_count INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE product ADD COLUMN saver_count INTEGER NOT NULL DEFAULT 0;
+
+UPDATE product p
+SET watcher_count = c.n
+FROM (SELECT pid, COUNT(*) AS n FROM user_product_watchlist GROUP BY pid) c
+WHERE c.pid = p.pid;
+
+UPDATE product p
+SET saver_count = c.n
+FROM (SELECT pid, COUNT(*) AS n FROM user_product_save_for_later GROUP BY pid) c
+WHERE c.pid = p.pid;
@@ -0,0 +1,24 @@
+-- Cross-platform product groups, assigned by ProductClusteringService.
+-- group_id is the smallest pid in the group; NULL means the product has not been clustered yet.
+ALTER TABLE product ADD COLUMN group_id INTEGER;
+
+CREATE INDEX IF NOT EXISTS idx_product_group_id
+    ON product (group_id);
+
+-- The clustering job's work queue
+CREATE INDEX IF NOT EXISTS idx_product_ungrouped
+    ON product (pid)
+    WHERE group_id IS NULL;
+
+-- LSH buckets of every clustered product's MinHash signature: products sharing a (band, bucket)
+-- are the only ones ever compared
+CREATE TABLE product_lsh_band (
+    band   SMALLINT NOT NULL,
+    bucket BIGINT   NOT NULL,
+    pid    INTEGER  NOT NULL,
+    CONSTRAINT product_lsh_band_pkey PRIMARY KEY (band, bucket, pid),
+    CONSTRAINT fk_lsh_band_product FOREIGN KEY (pid) REFERENCES product (pid) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_product_lsh_band_pid
+    ON product_lsh_band (pid);
@@ -0,0 +1,15 @@
+-- Idempotency-Key records for retried POSTs, shared by all nodes. A row is claimed (status NULL)
+-- before the request runs and completed with the response afterwards; IdempotencyService purges
+-- rows once they expire.
+CREATE TABLE idempotency_key (
+    uid          VARCHAR(255) NOT NULL,
+    idem_key     VARCHAR(128) NOT NULL,
+    request_hash VARCHAR(64)  NOT NULL,
+    status       SMALLINT,
+    body         TEXT,
+    created_at   TIMESTAMPTZ  NOT NULL DEFAULT now(),
+    CONSTRAINT idempotency_key_pkey PRIMARY KEY (uid, idem_key)
+);
+
+CREATE INDEX IF NOT EXISTS idx_idempotency_key_created_at
+    ON idempotency_key (created_at);
@@ -0,0 +1,13 @@
+-- Accounts being deleted in the background by UserDeletionService. The users row is anonymized
+-- when deletion is requested; the worker then removes the association rows in pid order, a
+-- chunk per transaction, recording the last pid it removed so an interrupted run resumes there.
+-- The users row and this one go last, together.
+CREATE TABLE user_deletion (
+    user_id               BIGINT      NOT NULL,
+    requested_at          TIMESTAMPTZ NOT NULL DEFAULT now(),
+    watchlist_cursor      INTEGER     NOT NULL DEFAULT 0,
+    save_for_later_cursor INTEGER     NOT NULL DEFAULT 0,
+    rows_deleted          BIGINT      NOT NULL DEFAULT 0,
+    CONSTRAINT user_deletion_pkey PRIMARY KEY (user_id),
+    CONSTRAINT fk_user_deletion_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
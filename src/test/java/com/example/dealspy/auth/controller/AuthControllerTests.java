@@ -0,0 +1,69 @@
+package com.example.dealspy.auth.controller;
+
+import com.example.dealspy.health.DependencyProber;
+import com.example.dealspy.health.DependencyProber.Dependency;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AuthControllerTests {
+
+    private final DependencyProber prober = mock(DependencyProber.class);
+    private final AuthController controller = new AuthController();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(controller, "dependencyProber", prober);
+    }
+
+    @Test
+    void remoteOutagesAreReportedWithoutFailingTheNode() {
+        probed(Dependency.POSTGRES, Status.UP);
+        probed(Dependency.FIREBASE, Status.DOWN);
+        probed(Dependency.FASTAPI, Status.DOWN);
+
+        ResponseEntity<Map<String, Object>> response = controller.healthCheck();
+
+        assertThat(response.getStatusCode().value()).isEqualTo(200);
+        assertThat(response.getBody()).containsEntry("status", "OK").containsEntry("database", "UP")
+                .containsEntry("firebase", "ERROR").containsEntry("fastapi", "DOWN");
+    }
+
+    @Test
+    void firebaseNotProbedYetDoesNotFailTheNode() {
+        probed(Dependency.POSTGRES, Status.UP);
+
+        ResponseEntity<Map<String, Object>> response = controller.healthCheck();
+
+        assertThat(response.getStatusCode().value()).isEqualTo(200);
+        assertThat(response.getBody()).containsEntry("firebase", "NOT_INITIALIZED").containsEntry("fastapi", "UNKNOWN");
+    }
+
+    @Test
+    void databaseDecidesReadiness() {
+        assertThat(controller.healthCheck().getStatusCode().value()).isEqualTo(503);
+        assertThat(controller.healthCheck().getBody()).containsEntry("status", "STARTING");
+
+        probed(Dependency.POSTGRES, Status.DOWN);
+        probed(Dependency.FIREBASE, Status.UP);
+
+        ResponseEntity<Map<String, Object>> response = controller.healthCheck();
+        assertThat(response.getStatusCode().value()).isEqualTo(503);
+        assertThat(response.getBody()).containsEntry("status", "ERROR").containsEntry("database", "DOWN");
+    }
+
+    private void probed(Dependency dependency, Status status) {
+        when(prober.last(dependency)).thenReturn(new DependencyProber.Probe(status, 1, Instant.now(),
+                Status.UP.equals(status) ? null : "refused"));
+        when(prober.isUp(dependency)).thenReturn(Status.UP.equals(status));
+    }
+}
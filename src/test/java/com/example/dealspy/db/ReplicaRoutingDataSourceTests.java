@@ -0,0 +1,161 @@
+package com.example.dealspy.db;
+
+import com.example.dealspy.auth.config.FirebaseAuthenticationFilter;
+import com.example.dealspy.config.DataSourceConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Two local Postgres instances stand in for primary and replica; which one answered is told
+ * apart by the server port.
+ */
+class ReplicaRoutingDataSourceTests {
+
+    private static EmbeddedPostgres primaryServer;
+    private static EmbeddedPostgres replicaServer;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private ReplicaRoutingDataSource routing;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+
+    @BeforeAll
+    static void startServers() throws IOException {
+        primaryServer = EmbeddedPostgres.builder().start();
+        replicaServer = EmbeddedPostgres.builder().start();
+    }
+
+    @AfterAll
+    static void stopServers() throws IOException {
+        primaryServer.close();
+        replicaServer.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        ReplicaProperties properties = new ReplicaProperties();
+        properties.setReadYourWritesMs(300);
+        properties.setMaxLagMs(300);
+        routing = new ReplicaRoutingDataSource(pool("primary", primaryServer), List.of(pool("replica-1", replicaServer)),
+                properties, registry);
+        DataSource dataSource = DataSourceConfig.lazy(routing);
+        jdbc = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactions = new DataSourceTransactionManager(dataSource);
+        readWrite = new TransactionTemplate(transactions);
+        readOnly = new TransactionTemplate(transactions);
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        routing.pools().values().forEach(HikariDataSource::close);
+    }
+
+    @Test
+    void userReadsGoToTheReplicaOnceItsLagIsKnown() {
+        signIn("u1");
+        // Not checked yet, so not trusted
+        assertThat(readOnlyServerPort()).isEqualTo(primaryServer.getPort());
+
+        routing.checkLag();
+        assertThat(readOnlyServerPort()).isEqualTo(replicaServer.getPort());
+        assertThat(readWriteServerPort()).isEqualTo(primaryServer.getPort());
+        assertThat(registry.get("dealspy.db.replica.lag").tag("replica", "replica-1").gauge().value()).isZero();
+        assertThat(registry.counter("dealspy.db.routing", "target", "replica", "reason", "read_only").count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void writerReadsFromThePrimaryUntilTheWindowHasPassed() throws Exception {
+        routing.checkLag();
+        signIn("writer");
+        readWriteServerPort();
+        assertThat(readOnlyServerPort()).isEqualTo(primaryServer.getPort());
+        assertThat(registry.counter("dealspy.db.routing", "target", "primary", "reason", "read_your_writes").count())
+                .isEqualTo(1);
+
+        signIn("someone-else");
+        assertThat(readOnlyServerPort()).isEqualTo(replicaServer.getPort());
+
+        signIn("writer");
+        Thread.sleep(400);
+        assertThat(readOnlyServerPort()).isEqualTo(replicaServer.getPort());
+    }
+
+    @Test
+    void backgroundReadsStayOnThePrimary() {
+        routing.checkLag();
+        assertThat(readOnlyServerPort()).isEqualTo(primaryServer.getPort());
+        assertThat(registry.counter("dealspy.db.routing", "target", "primary", "reason", "background").count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void unreachableReplicaFallsBackToThePrimary() {
+        routing.checkLag();
+        signIn("u1");
+        routing.pools().get("replica-1").close();
+
+        assertThat(readOnlyServerPort()).isEqualTo(primaryServer.getPort());
+        routing.checkLag();
+        assertThat(readOnlyServerPort()).isEqualTo(primaryServer.getPort());
+        assertThat(registry.get("dealspy.db.replica.lag").gauge().value()).isInfinite();
+        assertThat(registry.counter("dealspy.db.routing", "target", "primary", "reason", "replica_lag").count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void lagLimitBeyondTheReadYourWritesWindowIsRejected() {
+        ReplicaProperties properties = new ReplicaProperties();
+        properties.setReadYourWritesMs(5000);
+        properties.setMaxLagMs(10000);
+
+        assertThatThrownBy(() -> new ReplicaRoutingDataSource(pool("primary-2", primaryServer), List.of(), properties,
+                registry)).isInstanceOf(IllegalStateException.class).hasMessageContaining("max-lag-ms");
+    }
+
+    private int readOnlyServerPort() {
+        return readOnly.execute(status -> serverPort());
+    }
+
+    private int readWriteServerPort() {
+        return readWrite.execute(status -> serverPort());
+    }
+
+    private int serverPort() {
+        return jdbc.queryForObject("SELECT inet_server_port()", Integer.class);
+    }
+
+    private static void signIn(String uid) {
+        SecurityContextHolder.getContext().setAuthentication(
+                FirebaseAuthenticationFilter.authenticationFor(uid, uid + "@example.com", uid));
+    }
+
+    private static HikariDataSource pool(String name, EmbeddedPostgres server) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setPoolName(name);
+        pool.setJdbcUrl(server.getJdbcUrl("postgres", "postgres"));
+        pool.setUsername("postgres");
+        pool.setConnectionTimeout(2000);
+        return pool;
+    }
+}
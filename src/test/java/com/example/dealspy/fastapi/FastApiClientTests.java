@@ -0,0 +1,148 @@
+package com.example.dealspy.fastapi;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FastApiClientTests {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicInteger received = new AtomicInteger();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private HttpServer server;
+    private FastApiClient client;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // /hang never answers until the test ends, /fail answers 500, /ok answers 204
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/hang", exchange -> {
+            received.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.close();
+        });
+        server.createContext("/fail", exchange -> {
+            received.incrementAndGet();
+            exchange.sendResponseHeaders(500, -1);
+            exchange.close();
+        });
+        server.createContext("/ok", exchange -> {
+            received.incrementAndGet();
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        server.start();
+
+        FastApiProperties properties = new FastApiProperties();
+        properties.setBaseUrl("http://localhost:" + server.getAddress().getPort());
+        properties.setReadTimeoutMs(1000);
+        properties.setResponseTimeoutMs(1000);
+        properties.setMaxConcurrentCalls(2);
+        properties.getBreaker().setWindowSize(4);
+        properties.getBreaker().setMinimumCalls(4);
+        client = new FastApiClient(WebClient.builder(), properties, registry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        client.shutdown();
+        server.stop(0);
+    }
+
+    @Test
+    void hungServiceTimesOutAndExtraCallsAreRejectedWithoutWaiting() throws Exception {
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        List<Future<Boolean>> hung = List.of(
+                callers.submit(() -> client.post("/hang", null, Duration.ofMillis(1500))),
+                callers.submit(() -> client.post("/hang", null, Duration.ofMillis(1500))));
+        awaitReceived(2);
+
+        // Both bulkhead slots are taken
+        long start = System.nanoTime();
+        assertThat(client.post("/ok", null)).isFalse();
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(100);
+        assertThat(registry.counter("dealspy.fastapi.calls", "outcome", "bulkhead_full").count()).isEqualTo(1);
+        assertThat(registry.get("dealspy.fastapi.bulkhead.available").gauge().value()).isZero();
+
+        // Each hung call ends at its own deadline, not when the service gives up
+        for (Future<Boolean> call : hung) {
+            assertThat(call.get(5, TimeUnit.SECONDS)).isFalse();
+        }
+        callers.shutdown();
+        assertThat(registry.get("dealspy.fastapi.bulkhead.available").gauge().value()).isEqualTo(2);
+        assertThat(client.post("/ok", null)).isTrue();
+    }
+
+    @Test
+    void breakerOpensOnFailuresAndStopsCallingTheService() {
+        for (int i = 0; i < 4; i++) {
+            assertThat(client.post("/fail", null)).isFalse();
+        }
+        assertThat(client.circuitState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(registry.get("dealspy.fastapi.circuit.state").tag("state", "open").gauge().value()).isEqualTo(1);
+
+        // A failure can also be a pooled connection the stub closed before the request reached it
+        int reached = received.get();
+        assertThat(client.post("/ok", null)).isFalse();
+        assertThat(received.get()).isEqualTo(reached);
+        assertThat(registry.counter("dealspy.fastapi.calls", "outcome", "circuit_open").count()).isEqualTo(1);
+    }
+
+    @Test
+    void breakerLetsOneTrialThroughAfterTheOpenPeriod() {
+        AtomicLong now = new AtomicLong();
+        CircuitBreaker breaker = new CircuitBreaker(4, 2, 0.5, 1_000, now::get);
+
+        breaker.onSuccess();
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+        breaker.onFailure();
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquirePermission()).isFalse();
+
+        now.addAndGet(1_000);
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.tryAcquirePermission()).isFalse();
+        breaker.onFailure();
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        now.addAndGet(1_000);
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+        breaker.onSuccess();
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        // The window starts over: one failure is below the minimum number of calls
+        breaker.onFailure();
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    private void awaitReceived(int calls) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (received.get() < calls && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(received.get()).isEqualTo(calls);
+    }
+}
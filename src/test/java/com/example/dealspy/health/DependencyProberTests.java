@@ -0,0 +1,118 @@
+package com.example.dealspy.health;
+
+import com.example.dealspy.fastapi.FastApiClient;
+import com.example.dealspy.fastapi.FastApiProperties;
+import com.example.dealspy.health.DependencyProber.Dependency;
+import com.google.api.core.SettableApiFuture;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.ListUsersPage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DependencyProberTests {
+
+    private final SettableApiFuture<ListUsersPage> firebaseResponse = SettableApiFuture.create();
+    private final FirebaseAuth firebaseAuth = mock(FirebaseAuth.class);
+    private DependencyProber prober;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws Exception {
+        Connection connection = mock(Connection.class);
+        when(connection.isValid(anyInt())).thenReturn(true);
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(firebaseAuth.listUsersAsync(isNull(), anyInt())).thenReturn(firebaseResponse);
+        ObjectProvider<FirebaseAuth> firebase = mock(ObjectProvider.class);
+        when(firebase.getObject()).thenReturn(firebaseAuth);
+
+        // Nothing listens on the discard port, so FastAPI is refused straight away
+        FastApiProperties fastApi = new FastApiProperties();
+        fastApi.setBaseUrl("http://localhost:9");
+        FastApiClient fastApiClient = new FastApiClient(WebClient.builder(), fastApi, new SimpleMeterRegistry());
+
+        prober = new DependencyProber(dataSource, firebase, fastApiClient);
+        ReflectionTestUtils.setField(prober, "fastApiPath", "/");
+        ReflectionTestUtils.setField(prober, "intervalMs", 100L);
+        ReflectionTestUtils.setField(prober, "timeoutMs", 300L);
+        prober.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        prober.shutdown();
+    }
+
+    @Test
+    void slowFirebaseTimesOutWithoutBlockingHealthReads() throws Exception {
+        prober.probeAll();
+
+        long start = System.nanoTime();
+        Health firebase = prober.health(Dependency.FIREBASE);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(50);
+        assertThat(firebase.getStatus()).isEqualTo(Status.UNKNOWN);
+
+        awaitResult(Dependency.FIREBASE);
+        assertThat(prober.health(Dependency.FIREBASE).getStatus()).isEqualTo(Status.DOWN);
+        assertThat(prober.last(Dependency.FIREBASE).error()).contains("timed out");
+        assertThat(firebaseResponse.isCancelled()).isTrue();
+
+        awaitResult(Dependency.POSTGRES);
+        assertThat(prober.isUp(Dependency.POSTGRES)).isTrue();
+        awaitResult(Dependency.FASTAPI);
+        assertThat(prober.health(Dependency.FASTAPI).getStatus()).isEqualTo(Status.DOWN);
+    }
+
+    @Test
+    void probeStillRunningIsNotStartedAgain() throws Exception {
+        prober.probeAll();
+        prober.probeAll();
+        prober.probeAll();
+
+        awaitResult(Dependency.FIREBASE);
+        verify(firebaseAuth, times(1)).listUsersAsync(null, 1);
+    }
+
+    @Test
+    void oldResultIsReportedAsStale() throws Exception {
+        firebaseResponse.set(mock(ListUsersPage.class));
+        prober.probeAll();
+        awaitResult(Dependency.FIREBASE);
+        assertThat(prober.health(Dependency.FIREBASE).getStatus()).isEqualTo(Status.UP);
+        assertThat(prober.health(Dependency.FIREBASE).getDetails()).containsKeys("latencyMs", "checkedAt", "ageMs");
+
+        // No probe for more than three intervals plus the timeout
+        Thread.sleep(700);
+        Health stale = prober.health(Dependency.FIREBASE);
+        assertThat(stale.getStatus()).isEqualTo(Status.DOWN);
+        assertThat(stale.getDetails().get("reason").toString()).startsWith("no probe result");
+        assertThat(prober.isUp(Dependency.FIREBASE)).isFalse();
+    }
+
+    private void awaitResult(Dependency dependency) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (prober.last(dependency) == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(prober.last(dependency)).as("%s probe result", dependency).isNotNull();
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.dealspy.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductSearchIndexTests {
+
+    @Test
+    void mostPopularMatchWinsWhereverItsPidIs() {
+        ProductSearchIndex index = new ProductSearchIndex(pid -> pid == 4_321 ? 1_000 : pid == 4_999 ? 10 : 0);
+        for (int pid = 1; pid <= 5_000; pid++) {
+            index.upsert(entry(pid, "Phone Case Model " + pid));
+        }
+
+        List<ProductSearchIndex.Entry> hits = index.search("phone", 3);
+
+        assertThat(hits).extracting(ProductSearchIndex.Entry::pid).startsWith(4_321, 4_999);
+    }
+
+    @Test
+    void everyExpansionOfALongPrefixIsSearched() {
+        ProductSearchIndex index = new ProductSearchIndex(pid -> pid == 1_000 ? 50 : 0);
+        // 200 distinct dictionary terms under "phon", the popular one sorting last
+        for (int pid = 1; pid <= 200; pid++) {
+            index.upsert(entry(pid, "phon" + (char) ('a' + pid / 26) + (char) ('a' + pid % 26)));
+        }
+        index.upsert(entry(1_000, "phonzz"));
+
+        List<ProductSearchIndex.Entry> hits = index.search("phon", 1);
+
+        assertThat(hits).extracting(ProductSearchIndex.Entry::pid).containsExactly(1_000);
+    }
+
+    @Test
+    void textMatchStillBreaksPopularityTies() {
+        ProductSearchIndex index = new ProductSearchIndex(pid -> 0);
+        index.upsert(entry(1, "Case for Samsung Phone"));
+        index.upsert(entry(2, "Samsung Galaxy Phone"));
+
+        assertThat(index.search("samsung gal", 1))
+                .extracting(ProductSearchIndex.Entry::pid).containsExactly(2);
+    }
+
+    @Test
+    void shortPrefixIsAnsweredWithoutRankingTheCatalogAgain() {
+        int[] popularity = new int[20_001];
+        AtomicInteger lookups = new AtomicInteger();
+        ProductSearchIndex index = new ProductSearchIndex(pid -> {
+            lookups.incrementAndGet();
+            return popularity[pid];
+        });
+        for (int pid = 1; pid <= 20_000; pid++) {
+            popularity[pid] = pid % 97;
+            index.upsert(entry(pid, "Phone Case Model " + pid));
+        }
+        index.search("p", 10);
+
+        lookups.set(0);
+        for (String query : List.of("p", "P", "c", "ca", "cas", "m", "mo", "mod")) {
+            assertThat(index.search(query, 10)).as(query).hasSize(10);
+        }
+        // The first search of each new prefix ranks it, repeats and the 50-hit page don't
+        int afterFirstRanking = lookups.get();
+        index.search("ca", 50);
+        index.search("mod", 10);
+
+        assertThat(lookups.get()).isEqualTo(afterFirstRanking).isLessThanOrEqualTo(6 * 20_000);
+    }
+
+    @Test
+    void shortPrefixTopFollowsWritesAndPopularityChanges() {
+        int[] popularity = new int[3_001];
+        Map<Integer, String> names = new HashMap<>();
+        ProductSearchIndex index = new ProductSearchIndex(pid -> popularity[pid]);
+        for (int pid = 1; pid <= 3_000; pid++) {
+            popularity[pid] = pid;
+            names.put(pid, (pid % 3 == 0 ? "Laptop Sleeve " : "Lamp Shade ") + pid);
+            index.upsert(entry(pid, names.get(pid)));
+        }
+        for (String query : List.of("l", "la", "lap", "s")) {
+            assertThat(pids(index.search(query, 10))).as(query).isEqualTo(bruteForce(names, popularity, query, 10));
+        }
+
+        // Pushes the whole held top out of the way, then lets it sink under everything else
+        for (int pid = 2_700; pid <= 3_000; pid++) {
+            popularity[pid] = 5_000 + pid;
+            index.popularityChanged(pid);
+        }
+        assertThat(pids(index.search("la", 10))).isEqualTo(bruteForce(names, popularity, "la", 10));
+        for (int pid = 2_700; pid <= 3_000; pid++) {
+            popularity[pid] = 0;
+            index.popularityChanged(pid);
+        }
+        // A product renamed out of a prefix, one removed outright and one climbing from the bottom
+        names.put(2_699, "Desk Fan 2699");
+        index.upsert(entry(2_699, names.get(2_699)));
+        names.remove(2_698);
+        index.remove(2_698);
+        popularity[7] = 4_000;
+        index.popularityChanged(7);
+
+        for (String query : List.of("l", "la", "lap", "s", "d")) {
+            assertThat(pids(index.search(query, 10))).as(query).isEqualTo(bruteForce(names, popularity, query, 10));
+            assertThat(pids(index.search(query, 50))).as(query).isEqualTo(bruteForce(names, popularity, query, 50));
+        }
+    }
+
+    // Ranks every product from scratch with the index's scoring
+    private static List<Integer> bruteForce(Map<Integer, String> names, int[] popularity, String prefix, int limit) {
+        return names.keySet().stream()
+                .filter(pid -> ProductSearchIndex.tokenize(names.get(pid)).stream().anyMatch(t -> t.startsWith(prefix)))
+                .sorted(Comparator.comparingDouble((Integer pid) -> -score(names.get(pid), popularity[pid], prefix)))
+                .limit(limit)
+                .toList();
+    }
+
+    private static double score(String name, int popularity, String prefix) {
+        String normalizedName = String.join(" ", ProductSearchIndex.tokenize(name));
+        double score = Math.log1p(popularity);
+        if (normalizedName.startsWith(prefix)) {
+            score += 3;
+        }
+        if (ProductSearchIndex.tokenize(name).contains(prefix)) {
+            score += 1;
+        }
+        return score - normalizedName.length() / 1_000.0;
+    }
+
+    private static List<Integer> pids(List<ProductSearchIndex.Entry> entries) {
+        return entries.stream().map(ProductSearchIndex.Entry::pid).toList();
+    }
+
+    private static ProductSearchIndex.Entry entry(int pid, String name) {
+        return new ProductSearchIndex.Entry(pid, name, null, "amazon", null, null, 100.0);
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.dealspy.ratelimit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketLimiterTests {
+
+    private final AtomicLong now = new AtomicLong(1_000_000_000L);
+    private final TokenBucketLimiter limiter = new TokenBucketLimiter(8, now::get);
+    private final TokenBucketLimiter.Limit limit = TokenBucketLimiter.Limit.perMinute(60, 5);
+
+    @Test
+    void allowsBurstThenRefillsAtTheSustainedRate() {
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.tryAcquire("u:a", limit)).isZero();
+        }
+        long wait = limiter.tryAcquire("u:a", limit);
+        assertThat(wait).isEqualTo(TimeUnit.SECONDS.toNanos(1));
+
+        // Other callers have their own buckets
+        assertThat(limiter.tryAcquire("u:b", limit)).isZero();
+
+        now.addAndGet(wait);
+        assertThat(limiter.tryAcquire("u:a", limit)).isZero();
+        assertThat(limiter.tryAcquire("u:a", limit)).isPositive();
+    }
+
+    @Test
+    void grantsExactlyTheBurstUnderContention() throws Exception {
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        AtomicInteger granted = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            pool.execute(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    if (limiter.tryAcquire("u:hot", limit) == 0) {
+                        granted.incrementAndGet();
+                    }
+                }
+                done.countDown();
+            });
+        }
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        pool.shutdown();
+
+        assertThat(granted.get()).isEqualTo(5);
+    }
+
+    @Test
+    void sweepsCallersWhoseBucketsRefilled() {
+        for (int i = 0; i < 10_000; i++) {
+            limiter.tryAcquire("ip:" + i, limit);
+        }
+        assertThat(limiter.size()).isEqualTo(10_000);
+
+        // Everyone is full again after a few seconds; new callers trigger the sweeps
+        now.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        for (int i = 0; i < 10_000; i++) {
+            limiter.tryAcquire("ip:new-" + i, limit);
+        }
+        assertThat(limiter.size()).isLessThan(15_000);
+    }
+
+    @Test
+    void alternationPatternsMatchAsConfigured() {
+        var pattern = PathPatternParser.defaultInstance.parse("/{list:watchlist|saveforlater|profile}");
+        assertThat(pattern.matches(PathContainer.parsePath("/watchlist"))).isTrue();
+        assertThat(pattern.matches(PathContainer.parsePath("/profile"))).isTrue();
+        assertThat(pattern.matches(PathContainer.parsePath("/watchlist/stream"))).isFalse();
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.dealspy.repo;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+class ProductPriceRepoTests {
+
+    private static EmbeddedPostgres postgres;
+    private static DataSource dataSource;
+
+    private final JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+    private final TransactionTemplate transactions = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    private final ProductPriceRepo repo = new ProductPriceRepo(jdbc);
+
+    @BeforeAll
+    static void startPostgres() throws IOException {
+        postgres = EmbeddedPostgres.builder().start();
+        dataSource = postgres.getPostgresDatabase();
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load().migrate();
+    }
+
+    @AfterAll
+    static void stopPostgres() throws IOException {
+        postgres.close();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbc.execute("TRUNCATE product CASCADE");
+    }
+
+    @Test
+    void computesDropFlagAndLowestPriceInOneUpdate() {
+        jdbc.update("INSERT INTO product (pid, name, current_price, last_lowest_price, is_price_dropped) VALUES " +
+                "(1, 'drops', 100, 100, FALSE), " +
+                "(2, 'rises from a deal', 90, 100, TRUE), " +
+                "(3, 'unchanged, was flagged', 100, 100, TRUE), " +
+                "(4, 'unchanged', 100, 100, FALSE), " +
+                "(5, 'first price', NULL, NULL, NULL)");
+        Map<Integer, Double> prices = new HashMap<>(Map.of(1, 90.0, 2, 95.0, 3, 100.0, 4, 100.0, 5, 50.0, 999, 1.0));
+        prices.put(6, null);
+
+        ProductPriceRepo.Applied applied = transactions.execute(status -> repo.apply(prices));
+
+        assertThat(applied.updated()).isEqualTo(4);
+        assertThat(applied.previousPrices()).containsExactly(entry(1, 100.0), entry(2, 90.0), entry(3, 100.0),
+                entry(5, null));
+        assertThat(applied.droppedPids()).containsExactly(1);
+        assertThat(row(1)).containsExactly(90.0, 100.0, true);
+        assertThat(row(2)).containsExactly(95.0, 90.0, false);
+        assertThat(row(3)).containsExactly(100.0, 100.0, false);
+        assertThat(row(4)).containsExactly(100.0, 100.0, false);
+        assertThat(row(5)).containsExactly(50.0, null, false);
+    }
+
+    @Test
+    void streamsLargeBatchesAndCanRunTwiceInOneTransaction() {
+        jdbc.update("INSERT INTO product (pid, name, current_price, last_lowest_price, is_price_dropped) " +
+                "SELECT g, 'p' || g, 1000, 1000, FALSE FROM generate_series(1, 20000) g");
+        Map<Integer, Double> prices = new HashMap<>();
+        for (int pid = 1; pid <= 20000; pid++) {
+            prices.put(pid, pid % 2 == 0 ? 999.5 : 1000.25);
+        }
+
+        ProductPriceRepo.Applied applied = transactions.execute(status -> {
+            repo.apply(Map.of(1, 1.0));
+            return repo.apply(prices);
+        });
+
+        assertThat(applied.updated()).isEqualTo(20000);
+        assertThat(applied.droppedPids()).hasSize(10000).allMatch(pid -> pid % 2 == 0);
+        assertThat(jdbc.queryForObject("SELECT count(*) FROM product WHERE is_price_dropped", Long.class))
+                .isEqualTo(10000);
+        assertThat(row(1)).containsExactly(1000.25, 1.0, false);
+    }
+
+    private List<Object> row(int pid) {
+        return jdbc.queryForObject(
+                "SELECT current_price, last_lowest_price, is_price_dropped FROM product WHERE pid = ?",
+                (rs, rowNum) -> Arrays.asList(rs.getObject(1), rs.getObject(2), rs.getObject(3)), pid);
+    }
+}
@@ -0,0 +1,232 @@
+package com.example.dealspy.repo;
+
+import com.example.dealspy.model.Product;
+import com.example.dealspy.model.User;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.data.domain.Limit;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the hot repository queries against a seeded, analyzed PostgreSQL (schema from the Flyway
+ * migrations) and fails if any statement Hibernate issues for them is planned with a sequential scan.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.example.dealspy.repo.RepositoryQueryPlanTests$CapturingStatementInspector"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ProductProjectionRepo.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class RepositoryQueryPlanTests {
+
+    private static final int USERS = 20_000;
+    private static final int PRODUCTS = 20_000;
+    private static final int WATCHLIST_ROWS = 200_000;
+    private static final int SAVE_FOR_LATER_ROWS = 50_000;
+
+    private static EmbeddedPostgres postgres;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private WatchListRepo watchListRepo;
+    @Autowired
+    private SaveForLaterRepo saveForLaterRepo;
+    @Autowired
+    private ProductRepo productRepo;
+    @Autowired
+    private UserRepo userRepo;
+    @Autowired
+    private ProductProjectionRepo productProjectionRepo;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) throws IOException {
+        postgres = EmbeddedPostgres.builder().start();
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+    }
+
+    @AfterAll
+    static void stopPostgres() throws IOException {
+        if (postgres != null) {
+            postgres.close();
+        }
+    }
+
+    @BeforeAll
+    void seed() {
+        jdbcTemplate.execute("INSERT INTO users (uid, email, name) " +
+                "SELECT 'uid-' || g, 'user' || g || '@example.com', 'User ' || g FROM generate_series(1, " + USERS + ") g");
+        jdbcTemplate.execute("INSERT INTO product (name, brand, platform, current_price, last_lowest_price, is_price_dropped) " +
+                "SELECT 'Product ' || g, 'Brand ' || (g % 50), 'Platform ' || (g % 5), 1000 + g, 1000 + g, (g % 100 = 0) " +
+                "FROM generate_series(1, " + PRODUCTS + ") g");
+        // Power-law-ish skew: low pids are watched far more often than the tail
+        jdbcTemplate.execute("INSERT INTO user_product_watchlist (user_id, pid) " +
+                "SELECT DISTINCT 1 + (g % " + USERS + "), 1 + floor(" + PRODUCTS + " * power(random(), 3))::int " +
+                "FROM generate_series(1, " + WATCHLIST_ROWS + ") g ON CONFLICT DO NOTHING");
+        jdbcTemplate.execute("INSERT INTO user_product_save_for_later (user_id, pid) " +
+                "SELECT 1 + (g % " + USERS + "), 1 + (g * 7919 % " + PRODUCTS + ") " +
+                "FROM generate_series(1, " + SAVE_FOR_LATER_ROWS + ") g ON CONFLICT DO NOTHING");
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @BeforeEach
+    void resetCapturedStatements() {
+        CapturingStatementInspector.STATEMENTS.clear();
+    }
+
+    @Test
+    void findUsersByProductIdUsesIndexes() {
+        watchListRepo.findUsersByProductId(PRODUCTS / 2);
+        assertNoSequentialScans();
+    }
+
+    @Test
+    void watchlistByUserUsesIndexes() {
+        User user = userRepo.findByUid("uid-42").orElseThrow();
+        CapturingStatementInspector.STATEMENTS.clear();
+
+        watchListRepo.findByUser(user);
+        assertNoSequentialScans();
+    }
+
+    @Test
+    void saveForLaterByUserUsesIndexes() {
+        User user = userRepo.findByUid("uid-42").orElseThrow();
+        CapturingStatementInspector.STATEMENTS.clear();
+
+        saveForLaterRepo.findByUser(user);
+        assertNoSequentialScans();
+    }
+
+    @Test
+    void sparseProjectionsUseIndexes() {
+        Set<ProductField> fields = EnumSet.of(ProductField.PRODUCT_NAME, ProductField.PRICE);
+
+        List<Map<String, Object>> watchlist = productProjectionRepo.findWatchlistProducts("uid-42", fields);
+        productProjectionRepo.findSaveForLaterProducts("uid-42", fields);
+
+        assertThat(watchlist).isNotEmpty()
+                .allSatisfy(row -> assertThat(row).containsOnlyKeys("p.pid", "p.name", "p.currentPrice"));
+        assertNoSequentialScans();
+    }
+
+    @Test
+    void existsByUserAndProductUsesIndexes() {
+        User user = userRepo.findByUid("uid-42").orElseThrow();
+        Product product = productRepo.findByName("Product 42").orElseThrow();
+        CapturingStatementInspector.STATEMENTS.clear();
+
+        watchListRepo.existsByUserAndProduct(user, product);
+        assertNoSequentialScans();
+    }
+
+    @Test
+    void userLookupsUseIndexes() {
+        userRepo.findByUid("uid-42");
+        userRepo.findIdByUid("uid-42");
+        userRepo.existsByUid("uid-42");
+        userRepo.findFcmTokensByUids(List.of("uid-42", "uid-43"));
+        assertNoSequentialScans();
+    }
+
+    @Test
+    void productByNameUsesIndex() {
+        productRepo.findByName("Product 42");
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                assertThat(productRepo.lockByName("Product 42")).isPresent());
+        assertNoSequentialScans();
+    }
+
+    @Test
+    void droppedProductsUsePartialIndex() {
+        productRepo.findDroppedProducts();
+        assertNoSequentialScans();
+        assertThat(explain(CapturingStatementInspector.STATEMENTS.get(0))).contains("idx_product_price_dropped");
+    }
+
+    @Test
+    void ungroupedProductsUsePartialIndex() {
+        productRepo.findUngrouped(Limit.of(500));
+        assertNoSequentialScans();
+        assertThat(explain(CapturingStatementInspector.STATEMENTS.get(0))).contains("idx_product_ungrouped");
+    }
+
+    @Test
+    void deletesUseIndexes() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            watchListRepo.deleteByUserIdAndProductPid(42L, 42);
+            saveForLaterRepo.deleteByUserIdAndProductPid(42L, 42);
+            watchListRepo.deleteByUserId(42L);
+            status.setRollbackOnly();
+        });
+        assertNoSequentialScans();
+    }
+
+    private void assertNoSequentialScans() {
+        List<String> statements = List.copyOf(CapturingStatementInspector.STATEMENTS);
+        assertThat(statements).isNotEmpty();
+        for (String sql : statements) {
+            assertThat(explain(sql))
+                    .as("plan for %s", sql)
+                    .doesNotContain("Seq Scan");
+        }
+    }
+
+    // GENERIC_PLAN shows the plan a prepared statement settles on, independent of parameter values
+    private String explain(String sql) {
+        StringBuilder numbered = new StringBuilder();
+        int index = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '?') {
+                numbered.append('$').append(++index);
+            } else {
+                numbered.append(c);
+            }
+        }
+        // $n placeholders are only accepted by EXPLAIN over the simple query protocol
+        JdbcTemplate simpleProtocol = new JdbcTemplate(
+                postgres.getDatabase("postgres", "postgres", Map.of("preferQueryMode", "simple")));
+        return String.join("\n", simpleProtocol.queryForList("EXPLAIN (GENERIC_PLAN) " + numbered, String.class));
+    }
+
+    public static class CapturingStatementInspector implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
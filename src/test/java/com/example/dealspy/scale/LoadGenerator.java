@@ -0,0 +1,132 @@
+package com.example.dealspy.scale;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Closed-loop HTTP load: a fixed number of workers each send one request, wait for the response
+ * and send the next. Requests are authenticated as a random user, picked from the heavy users
+ * with the configured probability and uniformly from everyone otherwise. Only requests that both
+ * start and finish in the measurement window, after the warmup, are recorded.
+ */
+final class LoadGenerator {
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final String baseUrl;
+    private final int concurrency;
+    private final Duration warmup;
+    private final Duration duration;
+    private final int users;
+    private final int heavyUsers;
+    private final double heavyRequestShare;
+
+    LoadGenerator(String baseUrl, int concurrency, Duration warmup, Duration duration,
+                  int users, int heavyUsers, double heavyRequestShare) {
+        this.baseUrl = baseUrl;
+        this.concurrency = concurrency;
+        this.warmup = warmup;
+        this.duration = duration;
+        this.users = users;
+        this.heavyUsers = heavyUsers;
+        this.heavyRequestShare = heavyRequestShare;
+    }
+
+    /** Latencies in nanoseconds, sorted, plus the error count and the statements issued meanwhile. */
+    record Result(long[] latencies, long errors, double seconds, long statements) {
+    }
+
+    /** Drives GET {@code path} until the window closes; {@code statements} reads the DB statement counter. */
+    Result run(String path, LongSupplier statements) throws InterruptedException {
+        long warmupEnd = System.nanoTime() + warmup.toNanos();
+        long measureEnd = warmupEnd + duration.toNanos();
+        CountDownLatch done = new CountDownLatch(concurrency);
+        AtomicLong errors = new AtomicLong();
+        long[][] recorded = new long[concurrency][];
+
+        for (int w = 0; w < concurrency; w++) {
+            int worker = w;
+            Thread thread = new Thread(() -> {
+                try {
+                    recorded[worker] = work(path, warmupEnd, measureEnd, errors);
+                } finally {
+                    done.countDown();
+                }
+            }, "load-" + worker);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        sleepUntil(warmupEnd);
+        long statementsBefore = statements.getAsLong();
+        sleepUntil(measureEnd);
+        long statementsAfter = statements.getAsLong();
+        done.await();
+
+        long[] all = Arrays.stream(recorded).filter(Objects::nonNull).flatMapToLong(Arrays::stream).toArray();
+        Arrays.sort(all);
+        return new Result(all, errors.get(), duration.toNanos() / 1e9, statementsAfter - statementsBefore);
+    }
+
+    private long[] work(String path, long warmupEnd, long measureEnd, AtomicLong errors) {
+        long[] latencies = new long[1024];
+        int count = 0;
+        long start;
+        while ((start = System.nanoTime()) < measureEnd) {
+            boolean ok = send(path);
+            long end = System.nanoTime();
+            if (start < warmupEnd || end > measureEnd) {
+                continue;
+            }
+            if (!ok) {
+                errors.incrementAndGet();
+            }
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = end - start;
+        }
+        return Arrays.copyOf(latencies, count);
+    }
+
+    private boolean send(String path) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Authorization", "Bearer " + nextUid())
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+        try {
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            return response.statusCode() / 100 == 2;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private String nextUid() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int id = random.nextDouble() < heavyRequestShare
+                ? 1 + random.nextInt(heavyUsers)
+                : 1 + random.nextInt(users);
+        return "uid-" + id;
+    }
+
+    private static void sleepUntil(long nanoTime) throws InterruptedException {
+        long remaining;
+        while ((remaining = nanoTime - System.nanoTime()) > 0) {
+            Thread.sleep(Math.max(1, remaining / 1_000_000));
+        }
+    }
+}
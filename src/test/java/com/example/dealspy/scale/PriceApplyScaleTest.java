@@ -0,0 +1,166 @@
+package com.example.dealspy.scale;
+
+import com.example.dealspy.model.Product;
+import com.example.dealspy.repo.ProductPriceRepo;
+import com.example.dealspy.repo.ProductRepo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Applies one full refresh of product prices twice against the same seeded table: through JPA
+ * (load, set, dirty-checked UPDATE per product, a transaction per 1000 products) and through
+ * {@link ProductPriceRepo} (COPY into a temp table, one UPDATE ... FROM). Both must leave the table
+ * identical; timings go to target/scale-test/price-apply.json. Excluded from the normal build, run
+ * it with {@code ./mvnw test -Pscale-test -Dtest=PriceApplyScaleTest} ({@code -Ddealspy.scale.price-rows}).
+ */
+@Tag("scale")
+@DataJpaTest(properties = "logging.level.com.example.dealspy=WARN")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ProductPriceRepo.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@Slf4j
+class PriceApplyScaleTest {
+
+    private static final int ROWS = Integer.getInteger("dealspy.scale.price-rows", 200_000);
+    private static final int JPA_CHUNK = 1000;
+
+    private static EmbeddedPostgres postgres;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private ProductRepo productRepo;
+    @Autowired
+    private ProductPriceRepo productPriceRepo;
+
+    /** Timings in milliseconds. */
+    record Report(int rows, long rowsChanged, long drops, double jpaMs, double copyMs, double speedup) {
+    }
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) throws IOException {
+        postgres = EmbeddedPostgres.builder().setServerConfig("max_wal_size", "4GB").start();
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+    }
+
+    @AfterAll
+    static void stopPostgres() throws IOException {
+        if (postgres != null) {
+            postgres.close();
+        }
+    }
+
+    @BeforeAll
+    void seed() {
+        jdbcTemplate.execute("INSERT INTO product (name, current_price, last_lowest_price, is_price_dropped) " +
+                "SELECT 'Product ' || g, 1000 + g % 500, 1000 + g % 500, (g % 50 = 0) " +
+                "FROM generate_series(1, " + ROWS + ") g");
+    }
+
+    @Test
+    void copyApplyMatchesJpaAndReportsBoth() throws IOException {
+        Map<Integer, Double> prices = refreshedPrices();
+
+        reset();
+        long start = System.nanoTime();
+        applyThroughJpa(prices);
+        double jpaMs = (System.nanoTime() - start) / 1e6;
+        String jpaResult = checksum();
+
+        reset();
+        start = System.nanoTime();
+        ProductPriceRepo.Applied applied = productPriceRepo.apply(prices);
+        double copyMs = (System.nanoTime() - start) / 1e6;
+
+        assertThat(checksum()).isEqualTo(jpaResult);
+
+        Report report = new Report(ROWS, applied.updated(), applied.droppedPids().size(), jpaMs, copyMs, jpaMs / copyMs);
+        log.warn("{}", report);
+        File file = new File("target/scale-test/price-apply.json");
+        file.getParentFile().mkdirs();
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(file, report);
+    }
+
+    // A typical refresh: a fifth of the products get cheaper, a third more expensive, the rest keep their price
+    private Map<Integer, Double> refreshedPrices() {
+        Map<Integer, Double> prices = new HashMap<>();
+        for (Object[] row : productRepo.findAllPidsAndPrices()) {
+            Integer pid = (Integer) row[0];
+            double price = (Double) row[1];
+            prices.put(pid, pid % 5 == 0 ? price * 0.9 : pid % 3 == 0 ? price * 1.05 : price);
+        }
+        return prices;
+    }
+
+    private void applyThroughJpa(Map<Integer, Double> prices) {
+        TransactionTemplate transactions = new TransactionTemplate(transactionManager);
+        List<Integer> pids = new ArrayList<>(prices.keySet());
+        for (int from = 0; from < pids.size(); from += JPA_CHUNK) {
+            List<Integer> chunk = pids.subList(from, Math.min(from + JPA_CHUNK, pids.size()));
+            transactions.executeWithoutResult(status -> {
+                for (Product product : productRepo.findAllById(chunk)) {
+                    apply(product, prices.get(product.getPid()));
+                }
+            });
+        }
+    }
+
+    // The same rules as ProductPriceRepo's UPDATE
+    private static void apply(Product product, double price) {
+        Double current = product.getCurrentPrice();
+        if (!Objects.equals(current, price)) {
+            Double lowest = product.getLastLowestPrice() == null ? current
+                    : current == null ? product.getLastLowestPrice()
+                    : Math.min(product.getLastLowestPrice(), current);
+            product.setLastLowestPrice(lowest);
+            product.setIsPriceDropped(lowest != null && price < lowest);
+            product.setCurrentPrice(price);
+        } else if (Boolean.TRUE.equals(product.getIsPriceDropped())) {
+            product.setIsPriceDropped(false);
+        }
+    }
+
+    private void reset() {
+        jdbcTemplate.update("UPDATE product SET current_price = 1000 + pid % 500, last_lowest_price = 1000 + pid % 500, " +
+                "is_price_dropped = (pid % 50 = 0)");
+        jdbcTemplate.execute("VACUUM ANALYZE product");
+    }
+
+    private String checksum() {
+        return jdbcTemplate.queryForObject("SELECT md5(string_agg(pid || ':' || current_price || ':' || " +
+                "coalesce(last_lowest_price::text, '') || ':' || is_price_dropped, ',' ORDER BY pid)) FROM product",
+                String.class);
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.dealspy.scale;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Seeds a migrated, empty DealSpy database with a synthetic population, entirely inside Postgres
+ * (generate_series), in chunks so progress is visible and no single statement runs for too long.
+ * Watchers per product follow a power law: pids are drawn as {@code products * u^skew}, so low
+ * pids are the hot products. A small set of heavy users (the lowest ids) owns a fixed share of
+ * all watchlist rows. A database that already has users is left as it is, so a seeded external
+ * Postgres can be reused across runs.
+ */
+@Slf4j
+final class ScaleDataGenerator {
+
+    private static final int CHUNK = 1_000_000;
+
+    private ScaleDataGenerator() {
+    }
+
+    /** Size and skew of the generated data; every value can be overridden with -Ddealspy.scale.*. */
+    record Shape(int users, int products, long watchlistRows, long saveForLaterRows,
+                 int heavyUsers, double heavyShare, double skew, double fcmTokenShare) {
+
+        static Shape fromSystemProperties() {
+            return new Shape(
+                    Integer.getInteger("dealspy.scale.users", 100_000),
+                    Integer.getInteger("dealspy.scale.products", 50_000),
+                    Long.getLong("dealspy.scale.watchlist-rows", 2_000_000),
+                    Long.getLong("dealspy.scale.save-for-later-rows", 500_000),
+                    Integer.getInteger("dealspy.scale.heavy-users", 100),
+                    doubleProperty("dealspy.scale.heavy-share", 0.05),
+                    doubleProperty("dealspy.scale.skew", 3.0),
+                    doubleProperty("dealspy.scale.fcm-token-share", 0.8));
+        }
+    }
+
+    static void seed(JdbcTemplate jdbc, Shape shape) {
+        Long existing = jdbc.queryForObject("SELECT count(*) FROM users", Long.class);
+        if (existing != null && existing > 0) {
+            log.info("Database already has {} users, skipping seeding", existing);
+            return;
+        }
+        long start = System.currentTimeMillis();
+
+        for (long from = 1; from <= shape.users(); from += CHUNK) {
+            jdbc.update("INSERT INTO users (id, uid, email, name, fcm_token) " +
+                            "SELECT g, 'uid-' || g, 'user' || g || '@example.com', 'User ' || g, " +
+                            "CASE WHEN random() < ? THEN 'fcm-' || g END " +
+                            "FROM generate_series(?::bigint, ?::bigint) g",
+                    shape.fcmTokenShare(), from, Math.min(from + CHUNK - 1, shape.users()));
+        }
+        log.info("Seeded {} users", shape.users());
+
+        for (long from = 1; from <= shape.products(); from += CHUNK) {
+            jdbc.update("INSERT INTO product (pid, name, brand, platform, current_price, last_lowest_price, " +
+                            "is_price_dropped, image_url, deep_link) " +
+                            "SELECT g, 'Product ' || g, 'Brand ' || (g % 200), " +
+                            "(ARRAY['Amazon', 'Flipkart', 'Myntra', 'Croma', 'Reliance Digital'])[1 + g % 5], " +
+                            "100 + (g * 7919 % 50000), 100 + (g * 7919 % 50000), FALSE, " +
+                            "'https://img.example.com/' || g || '.jpg', 'https://shop.example.com/p/' || g " +
+                            "FROM generate_series(?::int, ?::int) g",
+                    from, Math.min(from + CHUNK - 1, shape.products()));
+        }
+        log.info("Seeded {} products", shape.products());
+
+        // Duplicate (user, product) draws are dropped, so the tables end up slightly below the target
+        for (long done = 0; done < shape.watchlistRows(); done += CHUNK) {
+            jdbc.update("INSERT INTO user_product_watchlist (user_id, pid) " +
+                            "SELECT CASE WHEN random() < ? THEN 1 + floor(random() * ?) " +
+                            "ELSE 1 + floor(random() * ?) END::bigint, " +
+                            "1 + floor(? * power(random(), ?))::int " +
+                            "FROM generate_series(1, ?) ON CONFLICT DO NOTHING",
+                    shape.heavyShare(), shape.heavyUsers(), shape.users(), shape.products(), shape.skew(),
+                    (int) Math.min(CHUNK, shape.watchlistRows() - done));
+            log.info("Seeded {} of {} watchlist rows", Math.min(done + CHUNK, shape.watchlistRows()),
+                    shape.watchlistRows());
+        }
+
+        for (long done = 0; done < shape.saveForLaterRows(); done += CHUNK) {
+            jdbc.update("INSERT INTO user_product_save_for_later (user_id, pid) " +
+                            "SELECT 1 + floor(random() * ?)::bigint, 1 + floor(? * power(random(), ?))::int " +
+                            "FROM generate_series(1, ?) ON CONFLICT DO NOTHING",
+                    shape.users(), shape.products(), shape.skew(),
+                    (int) Math.min(CHUNK, shape.saveForLaterRows() - done));
+        }
+        log.info("Seeded {} save-for-later rows", shape.saveForLaterRows());
+
+        jdbc.update("UPDATE product p SET watcher_count = c.n " +
+                "FROM (SELECT pid, count(*) AS n FROM user_product_watchlist GROUP BY pid) c WHERE c.pid = p.pid");
+        jdbc.update("UPDATE product p SET saver_count = c.n " +
+                "FROM (SELECT pid, count(*) AS n FROM user_product_save_for_later GROUP BY pid) c WHERE c.pid = p.pid");
+        // Ids were inserted explicitly, so the identity sequences still start at 1
+        jdbc.queryForObject("SELECT setval(pg_get_serial_sequence('users', 'id'), (SELECT max(id) FROM users))",
+                Long.class);
+        jdbc.queryForObject("SELECT setval(pg_get_serial_sequence('product', 'pid'), (SELECT max(pid) FROM product))",
+                Long.class);
+        jdbc.execute("ANALYZE");
+
+        log.info("Seeding finished in {} s", (System.currentTimeMillis() - start) / 1000);
+    }
+
+    private static double doubleProperty(String name, double defaultValue) {
+        String value = System.getProperty(name);
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+}
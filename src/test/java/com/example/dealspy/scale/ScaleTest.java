@@ -0,0 +1,238 @@
+package com.example.dealspy.scale;
+
+import com.example.dealspy.service.FCMService;
+import com.example.dealspy.service.ProductService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseToken;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+/**
+ * Scale test: seeds Postgres with a skewed synthetic population (see {@link ScaleDataGenerator}),
+ * boots the whole application against it with Firebase token verification and FCM stubbed out,
+ * and drives the real controllers over HTTP. Reports p50/p99/p999 latency, throughput and
+ * Hibernate statements per endpoint, plus the cost of one price-drop notification run, to
+ * target/scale-test/report.json. Needs no network access; excluded from the normal build, run it
+ * with {@code ./mvnw test -Pscale-test} (sizes and load are set with -Ddealspy.scale.*, see README).
+ */
+@Tag("scale")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.example.dealspy.scale.ScaleTest$CountingStatementInspector",
+        "dealspy.fastapi.base-url=http://localhost:9",
+        "dealspy.refresh.enabled=false",
+        "dealspy.clustering.enabled=false",
+        "dealspy.ratelimit.enabled=false",
+        "logging.level.com.example.dealspy=WARN"
+})
+@Slf4j
+class ScaleTest {
+
+    private static final ScaleDataGenerator.Shape SHAPE = ScaleDataGenerator.Shape.fromSystemProperties();
+    private static final List<String> ENDPOINTS = List.of(
+            "/watchlist", "/profile", "/saveforlater", "/watchlist?fields=productName,price");
+
+    private static EmbeddedPostgres postgres;
+
+    @MockitoBean
+    private FirebaseApp firebaseApp;
+    @MockitoBean
+    private FirebaseAuth firebaseAuth;
+    @MockitoBean
+    private FCMService fcmService;
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private ProductService productService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private ThreadPoolTaskExecutor asyncExecutor;
+
+    private final AtomicLong notifications = new AtomicLong();
+
+    /** Endpoint figures; latencies are in milliseconds and absent for the price-drop run. */
+    record EndpointReport(String endpoint, long requests, long errors, double throughputPerSecond,
+                          Double p50Ms, Double p99Ms, Double p999Ms, Double maxMs,
+                          long statements, double statementsPerRequest) {
+    }
+
+    // Migrated and seeded before the context starts, so the in-memory indexes load the full data set
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) throws IOException {
+        String url = System.getProperty("dealspy.scale.jdbc-url");
+        String username = System.getProperty("dealspy.scale.jdbc-username", "postgres");
+        String password = System.getProperty("dealspy.scale.jdbc-password", "");
+        if (url == null) {
+            postgres = EmbeddedPostgres.builder()
+                    .setServerConfig("shared_buffers", "512MB")
+                    .setServerConfig("max_wal_size", "4GB")
+                    .start();
+            url = postgres.getJdbcUrl("postgres", "postgres");
+        }
+
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(url, username, password);
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load().migrate();
+        ScaleDataGenerator.seed(new JdbcTemplate(dataSource), SHAPE);
+
+        String jdbcUrl = url;
+        registry.add("spring.datasource.url", () -> jdbcUrl);
+        registry.add("spring.datasource.username", () -> username);
+        registry.add("spring.datasource.password", () -> password);
+    }
+
+    @AfterAll
+    static void stopPostgres() throws IOException {
+        if (postgres != null) {
+            postgres.close();
+        }
+    }
+
+    @BeforeEach
+    void stubFirebase() throws Exception {
+        // The bearer token is the uid itself
+        when(firebaseAuth.verifyIdToken(anyString())).thenAnswer(invocation -> token(invocation.getArgument(0)));
+        doAnswer(invocation -> {
+            notifications.incrementAndGet();
+            return null;
+        }).when(fcmService).sendNotificationToTokenAsync(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void reportEndpointLatencyAndPriceDropRun() throws Exception {
+        LoadGenerator load = new LoadGenerator("http://localhost:" + port,
+                Integer.getInteger("dealspy.scale.concurrency", 32),
+                Duration.ofSeconds(Long.getLong("dealspy.scale.warmup-seconds", 10)),
+                Duration.ofSeconds(Long.getLong("dealspy.scale.duration-seconds", 30)),
+                SHAPE.users(), SHAPE.heavyUsers(),
+                Double.parseDouble(System.getProperty("dealspy.scale.heavy-request-share", "0.1")));
+
+        List<EndpointReport> reports = new ArrayList<>();
+        for (String endpoint : ENDPOINTS) {
+            LoadGenerator.Result result = load.run(endpoint, CountingStatementInspector.STATEMENTS::get);
+            reports.add(report("GET " + endpoint, result));
+            log.warn("{}", reports.get(reports.size() - 1));
+        }
+        reports.add(priceDropRun());
+        log.warn("{}", reports.get(reports.size() - 1));
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("dataset", dataset());
+        report.put("concurrency", Integer.getInteger("dealspy.scale.concurrency", 32));
+        report.put("results", reports);
+        File file = new File(System.getProperty("dealspy.scale.report", "target/scale-test/report.json"));
+        file.getParentFile().mkdirs();
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(file, report);
+        log.warn("Scale test report written to {}", file.getAbsolutePath());
+
+        assertThat(reports).allSatisfy(r -> assertThat(r.errors()).as(r.endpoint()).isZero());
+    }
+
+    // Flags a power-law sample of products (popular ones are more likely) as dropped, like a
+    // FastAPI refresh would, then times the notification run until every async fan-out has finished
+    private EndpointReport priceDropRun() throws InterruptedException {
+        int drops = Integer.getInteger("dealspy.scale.price-drops", 200);
+        int flagged = jdbcTemplate.update("UPDATE product SET is_price_dropped = TRUE, current_price = current_price * 0.9 " +
+                        "WHERE pid IN (SELECT 1 + floor(? * power(random(), ?))::int FROM generate_series(1, ?))",
+                SHAPE.products(), SHAPE.skew(), drops);
+
+        notifications.set(0);
+        long statementsBefore = CountingStatementInspector.STATEMENTS.get();
+        long start = System.nanoTime();
+        productService.sendDropNotifications();
+        while (asyncExecutor.getActiveCount() > 0 || !asyncExecutor.getThreadPoolExecutor().getQueue().isEmpty()) {
+            Thread.sleep(5);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long statements = CountingStatementInspector.STATEMENTS.get() - statementsBefore;
+
+        jdbcTemplate.update("UPDATE product SET is_price_dropped = FALSE WHERE is_price_dropped");
+        return new EndpointReport("price-drop run (" + notifications.get() + " notifications)", flagged, 0,
+                notifications.get() / seconds, null, null, null, seconds * 1000, statements,
+                flagged == 0 ? 0 : (double) statements / flagged);
+    }
+
+    private Map<String, Object> dataset() {
+        Map<String, Object> dataset = new LinkedHashMap<>();
+        dataset.put("shape", SHAPE);
+        dataset.put("users", jdbcTemplate.queryForObject("SELECT count(*) FROM users", Long.class));
+        dataset.put("products", jdbcTemplate.queryForObject("SELECT count(*) FROM product", Long.class));
+        dataset.put("watchlistRows", jdbcTemplate.queryForObject("SELECT count(*) FROM user_product_watchlist", Long.class));
+        dataset.put("saveForLaterRows",
+                jdbcTemplate.queryForObject("SELECT count(*) FROM user_product_save_for_later", Long.class));
+        dataset.put("maxWatchersPerProduct", jdbcTemplate.queryForObject("SELECT max(watcher_count) FROM product", Long.class));
+        return dataset;
+    }
+
+    private static EndpointReport report(String endpoint, LoadGenerator.Result result) {
+        long[] latencies = result.latencies();
+        long requests = latencies.length;
+        return new EndpointReport(endpoint, requests, result.errors(), requests / result.seconds(),
+                percentile(latencies, 0.50), percentile(latencies, 0.99), percentile(latencies, 0.999),
+                percentile(latencies, 1.0), result.statements(),
+                requests == 0 ? 0 : (double) result.statements() / requests);
+    }
+
+    private static Double percentile(long[] sortedNanos, double quantile) {
+        if (sortedNanos.length == 0) {
+            return null;
+        }
+        int index = (int) Math.ceil(quantile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(index, 0)] / 1e6;
+    }
+
+    // FirebaseToken has no public constructor; its claims map is all the filter reads
+    private static FirebaseToken token(String uid) throws ReflectiveOperationException {
+        Constructor<FirebaseToken> constructor = FirebaseToken.class.getDeclaredConstructor(Map.class);
+        constructor.setAccessible(true);
+        return constructor.newInstance(Map.<String, Object>of(
+                "sub", uid, "email", uid + "@example.com", "name", "User " + uid));
+    }
+
+    public static class CountingStatementInspector implements StatementInspector {
+
+        static final AtomicLong STATEMENTS = new AtomicLong();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.incrementAndGet();
+            return sql;
+        }
+    }
+}
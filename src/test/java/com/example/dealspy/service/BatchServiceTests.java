@@ -0,0 +1,124 @@
+package com.example.dealspy.service;
+
+import com.example.dealspy.dto.BatchRequestDTO;
+import com.example.dealspy.dto.BatchResultDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class BatchServiceTests {
+
+    private static final BatchService.Caller CALLER = new BatchService.Caller("u1", "u1@example.com", "U One", "token");
+
+    private final UserService userService = mock(UserService.class);
+    private final WatchListService watchListService = mock(WatchListService.class);
+    private final SaveForLaterService saveForLaterService = mock(SaveForLaterService.class);
+    private final ProductFieldsService productFieldsService = mock(ProductFieldsService.class);
+    private final BatchService service =
+            new BatchService(userService, watchListService, saveForLaterService, productFieldsService);
+
+    // Set once the verify sub-request has registered the user; the reads check it
+    private final AtomicBoolean verified = new AtomicBoolean();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "maxRequests", 10);
+        ReflectionTestUtils.setField(service, "threads", 4);
+        service.init();
+
+        doAnswer(invocation -> {
+            verified.set(true);
+            return null;
+        }).when(userService).syncVerifiedUser(anyString(), any(), any(), any());
+        when(watchListService.getUserWatchList("u1")).thenAnswer(invocation -> {
+            assertThat(verified).isTrue();
+            return Collections.emptyList();
+        });
+        when(saveForLaterService.getUserSaveForLater("u1")).thenAnswer(invocation -> {
+            assertThat(verified).isTrue();
+            return Collections.emptyList();
+        });
+        when(productFieldsService.getUserWatchList("u1", "productName")).thenAnswer(invocation -> {
+            assertThat(verified).isTrue();
+            return List.of(Map.of("productName", "Phone"));
+        });
+        when(productFieldsService.getUser("u1", "bogus")).thenThrow(new IllegalArgumentException("Unknown field: bogus"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void resultsComeBackInTheClientsOrderWithVerifyRunFirst() {
+        List<BatchResultDTO> results = service.execute(CALLER, List.of(
+                get("wl", "/watchlist"),
+                get("sfl", "/saveforlater"),
+                get("verify", "/auth/verify"),
+                get("fields", "/watchlist?fields=productName"),
+                get("bad-field", "/profile?fields=bogus")));
+
+        assertThat(results).extracting(BatchResultDTO::getId)
+                .containsExactly("wl", "sfl", "verify", "fields", "bad-field");
+        assertThat(results).extracting(BatchResultDTO::getStatus).containsExactly(200, 200, 200, 200, 400);
+        assertThat(results.get(3).getBody().getData()).isEqualTo(List.of(Map.of("productName", "Phone")));
+        assertThat(results.get(4).getBody().isSuccess()).isFalse();
+        assertThat(results.get(4).getBody().getMessage()).isEqualTo("Unknown field: bogus");
+    }
+
+    @Test
+    void eachFailingSubRequestGetsItsOwnStatus() {
+        when(userService.getUser("u1")).thenThrow(new UsernameNotFoundException("User not found with uid: u1"));
+
+        List<BatchResultDTO> results = service.execute(CALLER, List.of(
+                get("profile", "/profile"),
+                new BatchRequestDTO("post", "POST", "/watchlist"),
+                get("unknown", "/products/deals"),
+                get("relative", "watchlist"),
+                get("verify", "/auth/verify"),
+                get("wl", "/watchlist")));
+
+        assertThat(results).extracting(BatchResultDTO::getId)
+                .containsExactly("profile", "post", "unknown", "relative", "verify", "wl");
+        assertThat(results).extracting(BatchResultDTO::getStatus).containsExactly(404, 405, 404, 400, 200, 200);
+    }
+
+    @Test
+    void batchOverTheLimitIsRejectedBeforeAnythingRuns() {
+        List<BatchRequestDTO> requests = IntStream.rangeClosed(1, 11)
+                .mapToObj(i -> get("r" + i, i == 1 ? "/auth/verify" : "/watchlist"))
+                .toList();
+
+        assertThatThrownBy(() -> service.execute(CALLER, requests))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("limited to 10");
+        assertThatThrownBy(() -> service.execute(CALLER, List.of()))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(userService, watchListService);
+
+        assertThat(service.execute(CALLER, requests.subList(0, 10))).hasSize(10)
+                .allSatisfy(result -> assertThat(result.getStatus()).isEqualTo(200));
+    }
+
+    private static BatchRequestDTO get(String id, String path) {
+        return new BatchRequestDTO(id, "GET", path);
+    }
+}
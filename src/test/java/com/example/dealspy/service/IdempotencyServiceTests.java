@@ -0,0 +1,157 @@
+package com.example.dealspy.service;
+
+import com.example.dealspy.common.ApiResponse;
+import com.example.dealspy.repo.IdempotencyKeyRepo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdempotencyServiceTests {
+
+    private static final String ENDPOINT = "POST /watchlist";
+    private static final Map<String, String> PHONE = Map.of("name", "Phone");
+
+    private static EmbeddedPostgres postgres;
+    private static DataSource dataSource;
+
+    private final JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+    private final IdempotencyKeyRepo repo = new IdempotencyKeyRepo(new NamedParameterJdbcTemplate(dataSource));
+    private final IdempotencyService service = node();
+    private final AtomicInteger runs = new AtomicInteger();
+
+    @BeforeAll
+    static void startPostgres() throws IOException {
+        postgres = EmbeddedPostgres.builder().start();
+        dataSource = postgres.getPostgresDatabase();
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load().migrate();
+    }
+
+    @AfterAll
+    static void stopPostgres() throws IOException {
+        postgres.close();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbc.execute("TRUNCATE idempotency_key");
+    }
+
+    @Test
+    void firstRequestRunsAndReplaysGetItsResponseBack() {
+        ResponseEntity<ApiResponse<Void>> first = service.execute("u1", "k1", ENDPOINT, PHONE, added());
+        ResponseEntity<ApiResponse<Void>> replay = service.execute("u1", "k1", ENDPOINT, PHONE, added());
+
+        assertThat(runs).hasValue(1);
+        assertThat(first.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(first.getHeaders().containsKey(IdempotencyService.REPLAYED_HEADER)).isFalse();
+        assertThat(replay.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(replay.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(replay.getBody()).isEqualTo(first.getBody());
+        assertThat(jdbc.queryForObject("SELECT status FROM idempotency_key WHERE uid = 'u1' AND idem_key = 'k1'",
+                Integer.class)).isEqualTo(201);
+
+        // Keys are per user
+        service.execute("u2", "k1", ENDPOINT, PHONE, added());
+        assertThat(runs).hasValue(2);
+    }
+
+    @Test
+    void replayWhileTheOriginalIsRunningGets409() {
+        AtomicReference<ResponseEntity<ApiResponse<Void>>> duringRun = new AtomicReference<>();
+        service.execute("u1", "k1", ENDPOINT, PHONE, () -> {
+            duringRun.set(service.execute("u1", "k1", ENDPOINT, PHONE, added()));
+            return added().get();
+        });
+
+        assertThat(duringRun.get().getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void keyReusedForAnotherRequestGets422() {
+        service.execute("u1", "k1", ENDPOINT, PHONE, added());
+
+        ResponseEntity<ApiResponse<Void>> otherBody = service.execute("u1", "k1", ENDPOINT, Map.of("name", "Laptop"), added());
+        ResponseEntity<ApiResponse<Void>> otherEndpoint = service.execute("u1", "k1", "POST /saveforlater", PHONE, added());
+
+        assertThat(otherBody.getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+        assertThat(otherEndpoint.getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void failedRequestReleasesItsKeyForARetry() {
+        assertThatThrownBy(() -> service.execute("u1", "k1", ENDPOINT, PHONE, () -> {
+            throw new IllegalStateException("scraper down");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(repo.find("u1", "k1")).isEmpty();
+
+        ResponseEntity<ApiResponse<Void>> retry = service.execute("u1", "k1", ENDPOINT, PHONE, added());
+
+        assertThat(retry.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void claimAbandonedByADeadNodeIsTakenOver() {
+        jdbc.update("INSERT INTO idempotency_key (uid, idem_key, request_hash, created_at) " +
+                "VALUES ('u1', 'k1', 'other', now() - interval '2 minutes')");
+
+        ResponseEntity<ApiResponse<Void>> response = service.execute("u1", "k1", ENDPOINT, PHONE, added());
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(runs).hasValue(1);
+        assertThat(repo.find("u1", "k1")).get().extracting(IdempotencyKeyRepo.Entry::status).isEqualTo(201);
+    }
+
+    @Test
+    void anotherNodeReplaysTheStoredResponseFromTheTable() {
+        ResponseEntity<ApiResponse<Void>> first = service.execute("u1", "k1", ENDPOINT, PHONE, added());
+
+        // Nothing in this node's cache, so the answer can only come from the table
+        IdempotencyService otherNode = node();
+        ResponseEntity<ApiResponse<Void>> replay = otherNode.execute("u1", "k1", ENDPOINT, PHONE, added());
+        ResponseEntity<ApiResponse<Void>> otherBody = otherNode.execute("u1", "k1", ENDPOINT, Map.of("name", "Laptop"), added());
+
+        assertThat(runs).hasValue(1);
+        assertThat(replay.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(replay.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(replay.getBody()).isEqualTo(first.getBody());
+        assertThat(otherBody.getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+    }
+
+    private Supplier<ResponseEntity<ApiResponse<Void>>> added() {
+        return () -> {
+            runs.incrementAndGet();
+            return ResponseEntity.status(HttpStatus.CREATED).body(new ApiResponse<>(true, "Added to watchlist", null));
+        };
+    }
+
+    private IdempotencyService node() {
+        IdempotencyService node = new IdempotencyService(repo, new ObjectMapper());
+        ReflectionTestUtils.setField(node, "ttlMs", 86_400_000L);
+        ReflectionTestUtils.setField(node, "cacheSize", 100);
+        ReflectionTestUtils.setField(node, "inFlightTimeoutMs", 60_000L);
+        node.init();
+        return node;
+    }
+}
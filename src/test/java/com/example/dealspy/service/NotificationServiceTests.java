@@ -0,0 +1,61 @@
+package com.example.dealspy.service;
+
+import com.example.dealspy.index.WatcherIndex;
+import com.example.dealspy.repo.UserRepo;
+import com.example.dealspy.repo.WatchListRepo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class NotificationServiceTests {
+
+    private final WatchListRepo watchListRepo = mock(WatchListRepo.class);
+    private final UserRepo userRepo = mock(UserRepo.class);
+    private final FCMService fcmService = mock(FCMService.class);
+    private final WatcherIndex watcherIndex = new WatcherIndex(watchListRepo);
+    private final NotificationService service =
+            new NotificationService(watchListRepo, userRepo, fcmService, watcherIndex, new SimpleMeterRegistry());
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void recipientsComeFromTheIndexAndOnlyTokensFromTheDatabase() {
+        when(watchListRepo.streamAllUidAndProductIds()).thenReturn(Stream.of(
+                new Object[]{"u1", 7}, new Object[]{"u2", 7}, new Object[]{"u3", 8}));
+        watcherIndex.rebuild();
+        when(userRepo.findFcmTokensByUids(any())).thenAnswer(invocation ->
+                ((Collection<String>) invocation.getArgument(0)).stream().map(uid -> "token-" + uid).toList());
+
+        service.notifyPriceDropAsync(7, "Phone", 99.0);
+
+        verify(userRepo).findFcmTokensByUids(List.of("u1", "u2"));
+        verify(fcmService).sendNotificationToTokenAsync(eq("token-u1"), anyString(), anyString());
+        verify(fcmService).sendNotificationToTokenAsync(eq("token-u2"), anyString(), anyString());
+        verify(watchListRepo, never()).findUsersByProductId(anyInt());
+    }
+
+    @Test
+    void unwatchedProductTouchesNeitherDatabaseNorFcm() {
+        when(watchListRepo.streamAllUidAndProductIds()).thenReturn(Stream.<Object[]>of(new Object[]{"u1", 7}));
+        watcherIndex.rebuild();
+
+        service.notifyPriceDropAsync(8, "Laptop", 500.0);
+
+        verifyNoInteractions(userRepo, fcmService);
+        verify(watchListRepo, never()).findUsersByProductId(anyInt());
+        assertThat(watcherIndex.isReady()).isTrue();
+    }
+}
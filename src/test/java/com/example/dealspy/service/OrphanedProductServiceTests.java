@@ -0,0 +1,181 @@
+package com.example.dealspy.service;
+
+import com.example.dealspy.repo.OrphanedProductRepo;
+import com.example.dealspy.repo.ProductRepo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class OrphanedProductServiceTests {
+
+    private static EmbeddedPostgres postgres;
+    private static DataSource dataSource;
+
+    private final JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+    private final ProductSearchService search = mock(ProductSearchService.class);
+    private final BestOfferService bestOffers = mock(BestOfferService.class);
+    private final DealsFeedService deals = mock(DealsFeedService.class);
+    private final PriceRefreshScheduler refresh = mock(PriceRefreshScheduler.class);
+    private final ProductCounterService counters = mock(ProductCounterService.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private OrphanedProductService service;
+
+    @BeforeAll
+    static void startPostgres() throws IOException {
+        postgres = EmbeddedPostgres.builder().start();
+        dataSource = postgres.getPostgresDatabase();
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load().migrate();
+    }
+
+    @AfterAll
+    static void stopPostgres() throws IOException {
+        postgres.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        // 2500 products: every third watched, every fifth saved, the rest orphaned
+        jdbc.update("INSERT INTO product (pid, name, current_price) SELECT g, 'p' || g, 100 FROM generate_series(1, 2500) g");
+        jdbc.update("INSERT INTO users (id, uid, email) VALUES (1, 'u1', 'u1@example.com')");
+        jdbc.update("INSERT INTO user_product_watchlist (user_id, pid) SELECT 1, g FROM generate_series(3, 2500, 3) g");
+        jdbc.update("INSERT INTO user_product_save_for_later (user_id, pid) SELECT 1, g FROM generate_series(5, 2500, 5) g");
+        jdbc.update("INSERT INTO product_lsh_band (band, bucket, pid) VALUES (0, 42, 1), (0, 42, 3)");
+
+        service = new OrphanedProductService(new OrphanedProductRepo(new NamedParameterJdbcTemplate(dataSource)),
+                search, bestOffers, deals, refresh, counters,
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)), registry);
+        ReflectionTestUtils.setField(service, "batchSize", 1000);
+        ReflectionTestUtils.setField(service, "pauseMs", 0L);
+        service.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+        jdbc.execute("TRUNCATE user_product_watchlist, user_product_save_for_later, users, product CASCADE");
+    }
+
+    @Test
+    void deletesOnlyUnreferencedProducts() throws Exception {
+        long referenced = count("SELECT count(*) FROM product p WHERE p.pid % 3 = 0 OR p.pid % 5 = 0");
+
+        int reclaimed = service.collect();
+
+        assertThat(reclaimed).isEqualTo(2500 - referenced);
+        assertThat(count("SELECT count(*) FROM product")).isEqualTo(referenced);
+        assertThat(count("SELECT count(*) FROM product_lsh_band")).isEqualTo(1);
+        assertThat(registry.counter("dealspy.products.gc.reclaimed").count()).isEqualTo(reclaimed);
+        verify(search).remove(1);
+        verify(search, never()).remove(3);
+        verify(bestOffers).remove(1);
+        verify(bestOffers, never()).remove(3);
+        verify(deals).remove(1);
+        verify(deals, never()).remove(5);
+        verify(search, times(reclaimed)).remove(anyInt());
+        verify(bestOffers, times(reclaimed)).remove(anyInt());
+        verify(deals, times(reclaimed)).remove(anyInt());
+        verify(refresh, times(reclaimed)).untrack(anyInt());
+        verify(counters, times(reclaimed)).forget(anyInt());
+
+        assertThat(service.collect()).isZero();
+    }
+
+    @Test
+    void skipsProductsLockedByAConcurrentAdd() throws Exception {
+        // The lock ProductService.findOrCreateProduct holds until the watchlist row is inserted
+        String lockByName = ProductRepo.class.getMethod("lockByName", String.class).getAnnotation(Query.class).value();
+        try (Connection adding = dataSource.getConnection();
+             PreparedStatement lock = adding.prepareStatement(lockByName.replace(":name", "?"));
+             Statement statement = adding.createStatement()) {
+            adding.setAutoCommit(false);
+            lock.setString(1, "p1");
+            lock.executeQuery().close();
+
+            service.collect();
+            assertThat(count("SELECT count(*) FROM product WHERE pid = 1")).isEqualTo(1);
+            assertThat(count("SELECT count(*) FROM product WHERE pid = 2")).isZero();
+
+            statement.execute("INSERT INTO user_product_watchlist (user_id, pid) VALUES (1, 1)");
+            adding.commit();
+        }
+
+        service.collect();
+        assertThat(count("SELECT count(*) FROM product WHERE pid = 1")).isEqualTo(1);
+    }
+
+    @Test
+    void inMemoryEntriesAreDroppedOnlyOnceTheDeleteCommits() throws Exception {
+        // search, best-offer and deals defer their own removal to afterCommit, so they must be called
+        // inside the deleting transaction; the scheduler and counters are called after it committed
+        List<Boolean> removedInTransaction = new ArrayList<>();
+        Answer<Void> inTransaction = invocation -> {
+            removedInTransaction.add(TransactionSynchronizationManager.isSynchronizationActive());
+            return null;
+        };
+        doAnswer(inTransaction).when(search).remove(anyInt());
+        doAnswer(inTransaction).when(bestOffers).remove(anyInt());
+        doAnswer(inTransaction).when(deals).remove(anyInt());
+        List<Long> rowsSeenByUntrack = new ArrayList<>();
+        doAnswer(invocation -> {
+            rowsSeenByUntrack.add(count("SELECT count(*) FROM product WHERE pid = " + invocation.getArgument(0)));
+            return null;
+        }).when(refresh).untrack(anyInt());
+
+        int reclaimed = service.collect();
+
+        assertThat(removedInTransaction).hasSize(3 * reclaimed).containsOnly(true);
+        // Read on another connection: the delete is already committed
+        assertThat(rowsSeenByUntrack).hasSize(reclaimed).containsOnly(0L);
+    }
+
+    @Test
+    void rolledBackBatchKeepsItsProductsAndEntries() throws Exception {
+        // A reference committed between the orphan check and the delete fails the first batch
+        doThrow(new DataIntegrityViolationException("watchlist row added")).when(deals).remove(2);
+
+        int reclaimed = service.collect();
+
+        assertThat(count("SELECT count(*) FROM product WHERE pid <= 1000")).isEqualTo(1000);
+        // Later batches still ran
+        assertThat(count("SELECT count(*) FROM product WHERE pid > 1000 AND pid % 3 <> 0 AND pid % 5 <> 0")).isZero();
+        verify(refresh, never()).untrack(1);
+        verify(counters, never()).forget(1);
+        verify(refresh, times(reclaimed)).untrack(anyInt());
+        verify(counters, times(reclaimed)).forget(anyInt());
+    }
+
+    private long count(String sql) {
+        return jdbc.queryForObject(sql, Long.class);
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.dealspy.service;
+
+import com.example.dealspy.fastapi.FastApiClient;
+import com.example.dealspy.model.Product;
+import com.example.dealspy.repo.ProductRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PriceRefreshSchedulerTests {
+
+    private final ProductRepo productRepo = mock(ProductRepo.class);
+    private final NotificationService notificationService = mock(NotificationService.class);
+    private final FastApiClient fastApiClient = mock(FastApiClient.class);
+    private final PriceRefreshScheduler scheduler = new PriceRefreshScheduler(productRepo, notificationService,
+            mock(ProductCounterService.class), mock(ProductSearchService.class), mock(BestOfferService.class),
+            mock(DealsFeedService.class), mock(PriceStreamService.class), fastApiClient);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(scheduler, "enabled", true);
+        ReflectionTestUtils.setField(scheduler, "batchSize", 10);
+        ReflectionTestUtils.setField(scheduler, "timeoutMs", 1000L);
+        when(fastApiClient.post(anyString(), any(), any())).thenReturn(true);
+        scheduler.track(1, 100.0);
+    }
+
+    @Test
+    void flaggedProductIsAnnouncedOncePerDrop() {
+        refreshTo(90.0, true);
+        refreshTo(90.0, true);
+        verify(notificationService, times(1)).notifyPriceDropAsync(eq(1), anyString(), anyDouble());
+
+        // Still flagged, but cheaper than what was announced
+        refreshTo(80.0, true);
+        verify(notificationService).notifyPriceDropAsync(1, "Phone", 80.0);
+
+        // The drop ends, then a new one starts at the old level
+        refreshTo(120.0, false);
+        refreshTo(85.0, true);
+        verify(notificationService).notifyPriceDropAsync(1, "Phone", 85.0);
+        verify(notificationService, times(3)).notifyPriceDropAsync(anyInt(), anyString(), anyDouble());
+    }
+
+    @Test
+    void productFlaggedWhenTrackedIsNotAnnouncedAgain() {
+        refreshTo(100.0, true);
+        verify(notificationService, never()).notifyPriceDropAsync(anyInt(), anyString(), anyDouble());
+    }
+
+    private void refreshTo(double price, boolean dropped) {
+        Product product = new Product();
+        product.setPid(1);
+        product.setName("Phone");
+        product.setCurrentPrice(price);
+        product.setIsPriceDropped(dropped);
+        when(productRepo.findAllById(List.of(1))).thenReturn(List.of(product));
+        scheduler.refreshNextBatch();
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.dealspy.service;
+
+import com.example.dealspy.repo.ProductRepo;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProductCounterServiceTests {
+
+    private final ProductRepo productRepo = mock(ProductRepo.class);
+    private final TransactionTemplate transactions = new TransactionTemplate(new NoOpTransactionManager());
+    private final ProductCounterService service = new ProductCounterService(productRepo, transactions);
+
+    @Test
+    void changeCommittedDuringTheRecountIsCountedOnce() {
+        when(productRepo.findAllCounters()).thenAnswer(invocation -> rows(new Object[]{1, 5, 0}, new Object[]{2, 3, 0}));
+        service.load();
+
+        // pid 1 gains a watcher between the flush and the recount, so the recount already includes it;
+        // pid 2 has genuinely drifted
+        when(productRepo.findCounterDrift()).thenAnswer(invocation -> {
+            transactions.executeWithoutResult(status -> service.watcherAdded(1));
+            return rows(new Object[]{1, 6L, 0L}, new Object[]{2, 2L, 0L});
+        });
+        when(productRepo.setCounters(anyInt(), anyInt(), anyInt())).thenReturn(1);
+
+        service.reconcile();
+
+        verify(productRepo, never()).setCounters(eq(1), anyInt(), anyInt());
+        verify(productRepo).setCounters(2, 2, 0);
+        assertThat(service.watcherCount(1)).isEqualTo(6);
+
+        service.flush();
+        verify(productRepo).adjustCounters(1, 1, 0);
+    }
+
+    @Test
+    void reloadKeepsBufferedDeltasAndNeverShowsAnEmptyMap() {
+        when(productRepo.findAllCounters()).thenAnswer(invocation -> rows(new Object[]{1, 5, 2}));
+        service.load();
+        service.watcherAdded(1);
+
+        List<Integer> seenDuringLoad = new ArrayList<>();
+        when(productRepo.findAllCounters()).thenAnswer(invocation -> {
+            seenDuringLoad.add(service.watcherCount(1));
+            // The table doesn't have the buffered delta yet
+            return rows(new Object[]{1, 5, 2});
+        });
+        service.load();
+
+        assertThat(seenDuringLoad).containsExactly(6);
+        assertThat(service.watcherCount(1)).isEqualTo(6);
+        assertThat(service.saverCount(1)).isEqualTo(2);
+    }
+
+    @Test
+    void rolledBackChangeIsNotCounted() {
+        when(productRepo.findAllCounters()).thenAnswer(invocation -> rows(new Object[]{1, 5, 0}));
+        service.load();
+
+        transactions.executeWithoutResult(status -> {
+            service.watcherAdded(1);
+            status.setRollbackOnly();
+        });
+        service.flush();
+
+        assertThat(service.watcherCount(1)).isEqualTo(5);
+        verify(productRepo, never()).adjustCounters(anyInt(), anyInt(), anyInt());
+    }
+
+    private static List<Object[]> rows(Object[]... rows) {
+        return List.of(rows);
+    }
+
+    // Runs transaction synchronizations without a database
+    private static final class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
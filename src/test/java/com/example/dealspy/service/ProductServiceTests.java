@@ -0,0 +1,88 @@
+package com.example.dealspy.service;
+
+import com.example.dealspy.fastapi.FastApiClient;
+import com.example.dealspy.model.Product;
+import com.example.dealspy.repo.ProductPriceRepo;
+import com.example.dealspy.repo.ProductRepo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProductServiceTests {
+
+    private final ProductRepo productRepo = mock(ProductRepo.class);
+    private final ProductPriceRepo productPriceRepo = mock(ProductPriceRepo.class);
+    private final NotificationService notificationService = mock(NotificationService.class);
+    private final ProductSearchService search = mock(ProductSearchService.class);
+    private final BestOfferService bestOffers = mock(BestOfferService.class);
+    private final DealsFeedService deals = mock(DealsFeedService.class);
+    private final PriceStreamService stream = mock(PriceStreamService.class);
+    private final ProductService service = new ProductService(productRepo, productPriceRepo, notificationService,
+            mock(PriceRefreshScheduler.class), search, bestOffers, deals, stream, mock(FastApiClient.class),
+            new SimpleMeterRegistry());
+
+    @Test
+    void bulkApplyAnnouncesOnlyItsOwnDropsAndRefreshesTheViews() {
+        Map<Integer, Double> previous = new LinkedHashMap<>();
+        previous.put(1, 100.0);
+        previous.put(2, 90.0);
+        Map<Integer, Double> prices = Map.of(1, 80.0, 2, 95.0, 3, 50.0);
+        when(productPriceRepo.apply(prices)).thenReturn(new ProductPriceRepo.Applied(previous, List.of(1)));
+        Product drop = product(1, 80.0, true);
+        Product rise = product(2, 95.0, false);
+        when(productRepo.findAllById(List.of(1, 2))).thenReturn(List.of(drop, rise));
+
+        service.applyPrices(prices);
+
+        // Product 3 was flagged by an earlier run and is not written here, so it is not announced again
+        verify(productRepo, never()).findDroppedProducts();
+        verify(notificationService).notifyPriceDropAsync(1, "p1", 80.0);
+        verify(notificationService, times(1)).notifyPriceDropAsync(anyInt(), anyString(), anyDouble());
+        for (Product product : List.of(drop, rise)) {
+            verify(search).index(product);
+            verify(bestOffers).update(product);
+            verify(deals).update(product);
+        }
+        verify(stream).publishPriceChange(drop, 100.0);
+        verify(stream).publishPriceChange(rise, 90.0);
+    }
+
+    @Test
+    void productCreatedAlreadyDiscountedReachesTheViews() {
+        when(productRepo.lockByName("Phone")).thenReturn(Optional.empty());
+        when(productRepo.save(any(Product.class))).thenAnswer(invocation -> {
+            Product product = invocation.getArgument(0);
+            product.setPid(7);
+            return product;
+        });
+
+        Product created = service.findOrCreateProduct("Phone", "Acme", "amazon", null, null, 80.0, 100.0);
+
+        verify(search).index(created);
+        verify(bestOffers).update(created);
+        verify(deals).update(created);
+    }
+
+    private static Product product(int pid, double price, boolean dropped) {
+        Product product = new Product();
+        product.setPid(pid);
+        product.setName("p" + pid);
+        product.setCurrentPrice(price);
+        product.setIsPriceDropped(dropped);
+        return product;
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.dealspy.service;
+
+import com.example.dealspy.index.WatcherIndex;
+import com.example.dealspy.repo.IdempotencyKeyRepo;
+import com.example.dealspy.repo.UserDeletionRepo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class UserDeletionServiceTests {
+
+    private static EmbeddedPostgres postgres;
+    private static DataSource dataSource;
+
+    private final JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+    private final TransactionTemplate transactions = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    private final ProductCounterService counters = mock(ProductCounterService.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private UserDeletionService service;
+
+    @BeforeAll
+    static void startPostgres() throws IOException {
+        postgres = EmbeddedPostgres.builder().start();
+        dataSource = postgres.getPostgresDatabase();
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load().migrate();
+    }
+
+    @AfterAll
+    static void stopPostgres() throws IOException {
+        postgres.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbc.update("INSERT INTO product (pid, name, current_price) SELECT g, 'p' || g, 100 FROM generate_series(1, 1500) g");
+        jdbc.update("INSERT INTO users (id, uid, email) VALUES (1, 'gone', 'gone@example.com'), (2, 'stays', 'stays@example.com')");
+        jdbc.update("INSERT INTO user_product_watchlist (user_id, pid) SELECT 1, g FROM generate_series(1, 1200) g");
+        jdbc.update("INSERT INTO user_product_save_for_later (user_id, pid) SELECT 1, g FROM generate_series(1, 300) g");
+        jdbc.update("INSERT INTO user_product_watchlist (user_id, pid) SELECT 2, g FROM generate_series(1, 50) g");
+
+        NamedParameterJdbcTemplate named = new NamedParameterJdbcTemplate(dataSource);
+        service = new UserDeletionService(new UserDeletionRepo(named), new IdempotencyKeyRepo(named),
+                mock(WatcherIndex.class), counters, transactions, registry);
+        ReflectionTestUtils.setField(service, "chunkSize", 500);
+        ReflectionTestUtils.setField(service, "pauseMs", 0L);
+        ReflectionTestUtils.setField(service, "usersPerRun", 20);
+        service.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+        jdbc.execute("TRUNCATE user_deletion, user_product_watchlist, user_product_save_for_later, users, product CASCADE");
+    }
+
+    @Test
+    void requestFreesTheAccountAtOnceAndTheWorkerRemovesTheRest() throws Exception {
+        transactions.executeWithoutResult(status -> service.requestDeletion(1L, "gone"));
+
+        // Signing up again with the same Firebase account works right away
+        jdbc.update("INSERT INTO users (id, uid, email) VALUES (3, 'gone', 'gone@example.com')");
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (count("SELECT count(*) FROM users WHERE id = 1") > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(count("SELECT count(*) FROM users WHERE id = 1")).isZero();
+        assertThat(count("SELECT count(*) FROM user_product_watchlist WHERE user_id = 1")).isZero();
+        assertThat(count("SELECT count(*) FROM user_product_save_for_later WHERE user_id = 1")).isZero();
+        assertThat(count("SELECT count(*) FROM user_deletion")).isZero();
+        assertThat(count("SELECT count(*) FROM user_product_watchlist WHERE user_id = 2")).isEqualTo(50);
+    }
+
+    @Test
+    void deletesInChunksAndResumesFromTheStoredCursor() throws Exception {
+        UserDeletionRepo repo = new UserDeletionRepo(new NamedParameterJdbcTemplate(dataSource));
+        transactions.executeWithoutResult(status -> repo.tombstone(1L));
+        assertThat(jdbc.queryForObject("SELECT uid FROM users WHERE id = 1", String.class)).isEqualTo("deleted:1");
+        assertThat(jdbc.queryForObject("SELECT fcm_token IS NULL FROM users WHERE id = 1", Boolean.class)).isTrue();
+
+        // A run that died after its first chunk
+        transactions.executeWithoutResult(status -> repo.advance(UserDeletionRepo.Association.WATCHLIST, 1L,
+                repo.deleteChunk(UserDeletionRepo.Association.WATCHLIST, 1L, 0, 500).get(499), 500));
+        assertThat(repo.findProgress(1L)).hasValueSatisfying(progress -> {
+            assertThat(progress.watchlistCursor()).isEqualTo(500);
+            assertThat(progress.rowsDeleted()).isEqualTo(500);
+        });
+
+        service.delete(1L);
+
+        assertThat(count("SELECT count(*) FROM users WHERE id = 1")).isZero();
+        assertThat(count("SELECT count(*) FROM user_product_watchlist WHERE user_id = 1")).isZero();
+        assertThat(count("SELECT count(*) FROM user_product_save_for_later WHERE user_id = 1")).isZero();
+        verify(counters, times(700)).watcherRemoved(anyInt());
+        verify(counters, times(300)).saverRemoved(anyInt());
+        assertThat(registry.counter("dealspy.users.deletion.rows", "table", "watchlist").count()).isEqualTo(700);
+    }
+
+    private long count(String sql) {
+        return jdbc.queryForObject(sql, Long.class);
+    }
+}
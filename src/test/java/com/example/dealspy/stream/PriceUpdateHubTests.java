@@ -0,0 +1,257 @@
+package com.example.dealspy.stream;
+
+import com.example.dealspy.dto.PriceUpdateDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PriceUpdateHubTests {
+
+    private static final int SENDER_THREADS = 8;
+    private static final long SEND_TIMEOUT_MS = 10_000;
+
+    private final ExecutorService senders = Executors.newFixedThreadPool(SENDER_THREADS);
+
+    @AfterEach
+    void stopSenders() {
+        senders.shutdownNow();
+    }
+
+    @Test
+    void fansOutLatestPricesToThousandsOfSubscribers() throws Exception {
+        int users = 2_500;
+        int connectionsPerUser = 2;
+        int products = 20;
+        int pricesPerProduct = 10;
+        PriceUpdateHub hub = new PriceUpdateHub(10_000, connectionsPerUser, 64, SEND_TIMEOUT_MS, senders);
+
+        List<RecordingSink> sinks = new ArrayList<>();
+        for (int user = 0; user < users; user++) {
+            for (int c = 0; c < connectionsPerUser; c++) {
+                RecordingSink sink = new RecordingSink();
+                assertThat(hub.subscribe("uid-" + user, sink)).isNotNull();
+                sinks.add(sink);
+            }
+        }
+        assertThat(hub.connections()).isEqualTo(users * connectionsPerUser);
+
+        // Concurrent publishers, each owning a slice of the products so per-product order is defined
+        int publishers = 4;
+        ExecutorService publisherPool = Executors.newFixedThreadPool(publishers);
+        CountDownLatch published = new CountDownLatch(publishers);
+        for (int p = 0; p < publishers; p++) {
+            int slice = p;
+            publisherPool.execute(() -> {
+                for (int round = 1; round <= pricesPerProduct; round++) {
+                    for (int product = slice; product < products; product += publishers) {
+                        for (int user = 0; user < users; user++) {
+                            hub.publish("uid-" + user, update(product, round));
+                        }
+                    }
+                }
+                published.countDown();
+            });
+        }
+        assertThat(published.await(30, TimeUnit.SECONDS)).isTrue();
+        publisherPool.shutdown();
+
+        for (RecordingSink sink : sinks) {
+            assertThat(sink.awaitPrices(products, pricesPerProduct, 30, TimeUnit.SECONDS)).isTrue();
+        }
+        assertThat(hub.droppedUpdates()).isZero();
+    }
+
+    @Test
+    void slowSubscriberIsBoundedAndDoesNotHoldUpOthers() throws Exception {
+        int bufferSize = 16;
+        PriceUpdateHub hub = new PriceUpdateHub(100, 5, bufferSize, SEND_TIMEOUT_MS, senders);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingSink slow = new RecordingSink(release);
+        RecordingSink fast = new RecordingSink();
+        hub.subscribe("slow", slow);
+        hub.subscribe("fast", fast);
+
+        // The fast client keeps receiving every update while the slow one is stuck on its first send
+        int products = 1_000;
+        for (int product = 0; product < products; product++) {
+            hub.publish("slow", update(product, 1));
+            hub.publish("fast", update(product, 1));
+            assertThat(fast.awaitPrices(product + 1, 1, 10, TimeUnit.SECONDS)).isTrue();
+        }
+
+        release.countDown();
+        assertThat(slow.awaitLatest("product-" + (products - 1), 1.0, 10, TimeUnit.SECONDS)).isTrue();
+        // Beyond the batch already in flight only the buffer was kept; the rest was shed, not queued
+        assertThat(slow.received.size()).isLessThanOrEqualTo(slow.firstBatchSize.get() + bufferSize);
+        assertThat(hub.droppedUpdates()).isEqualTo(products - slow.received.size());
+    }
+
+    @Test
+    void clientsThatStopReadingAreEvictedInsteadOfPinningEverySender() throws Exception {
+        PriceUpdateHub hub = new PriceUpdateHub(100, 1, 16, 200, senders);
+        ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor();
+        watchdog.scheduleWithFixedDelay(hub::evictStalled, 50, 50, TimeUnit.MILLISECONDS);
+        try {
+            // More stuck clients than sender threads, each blocked in its first write until interrupted
+            int stalledClients = SENDER_THREADS + 4;
+            CountDownLatch neverReleased = new CountDownLatch(1);
+            CountDownLatch closed = new CountDownLatch(stalledClients);
+            for (int i = 0; i < stalledClients; i++) {
+                hub.subscribe("stalled-" + i, new PriceUpdateHub.Sink() {
+                    @Override
+                    public void send(List<PriceUpdateDTO> updates) throws Exception {
+                        neverReleased.await();
+                    }
+
+                    @Override
+                    public void heartbeat() {
+                    }
+
+                    @Override
+                    public void close() {
+                        closed.countDown();
+                    }
+                });
+                hub.publish("stalled-" + i, update(1, 1));
+            }
+            RecordingSink fast = new RecordingSink();
+            hub.subscribe("fast", fast);
+            hub.publish("fast", update(1, 1));
+
+            assertThat(fast.awaitPrices(1, 1, 10, TimeUnit.SECONDS)).isTrue();
+            assertThat(closed.await(10, TimeUnit.SECONDS)).isTrue();
+            assertThat(hub.stalledEvictions()).isEqualTo(stalledClients);
+            assertThat(hub.connections()).isEqualTo(1);
+
+            // The freed threads keep serving
+            hub.publish("fast", update(2, 1));
+            assertThat(fast.awaitPrices(2, 1, 10, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            watchdog.shutdownNow();
+        }
+    }
+
+    @Test
+    void enforcesNodeAndPerUserConnectionLimits() {
+        PriceUpdateHub hub = new PriceUpdateHub(3, 2, 16, SEND_TIMEOUT_MS, senders);
+
+        assertThat(hub.subscribe("a", new RecordingSink())).isNotNull();
+        assertThat(hub.subscribe("a", new RecordingSink())).isNotNull();
+        assertThat(hub.subscribe("a", new RecordingSink())).isNull();
+        PriceUpdateHub.Subscriber b = hub.subscribe("b", new RecordingSink());
+        assertThat(b).isNotNull();
+        assertThat(hub.subscribe("c", new RecordingSink())).isNull();
+        assertThat(hub.connections()).isEqualTo(3);
+
+        hub.unsubscribe(b);
+        hub.unsubscribe(b);
+        assertThat(hub.connections()).isEqualTo(2);
+        assertThat(hub.subscribe("c", new RecordingSink())).isNotNull();
+    }
+
+    @Test
+    void failingSinkIsDisconnected() throws Exception {
+        PriceUpdateHub hub = new PriceUpdateHub(10, 1, 16, SEND_TIMEOUT_MS, senders);
+        CountDownLatch closed = new CountDownLatch(1);
+        hub.subscribe("a", new PriceUpdateHub.Sink() {
+            @Override
+            public void send(List<PriceUpdateDTO> updates) {
+                throw new IllegalStateException("client went away");
+            }
+
+            @Override
+            public void heartbeat() {
+            }
+
+            @Override
+            public void close() {
+                closed.countDown();
+            }
+        });
+
+        hub.publish("a", update(1, 1));
+
+        assertThat(closed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(hub.connections()).isZero();
+        assertThat(hub.connectedUsers()).isZero();
+    }
+
+    private static PriceUpdateDTO update(int product, double price) {
+        return new PriceUpdateDTO("product-" + product, "Amazon", price, null, false, System.currentTimeMillis());
+    }
+
+    private static final class RecordingSink implements PriceUpdateHub.Sink {
+        private final Map<String, Double> received = new ConcurrentHashMap<>();
+        private final CountDownLatch gate;
+        private final AtomicBoolean waited = new AtomicBoolean();
+        private final AtomicInteger firstBatchSize = new AtomicInteger();
+
+        private RecordingSink() {
+            this(null);
+        }
+
+        private RecordingSink(CountDownLatch gate) {
+            this.gate = gate;
+        }
+
+        @Override
+        public void send(List<PriceUpdateDTO> updates) throws Exception {
+            // The first send blocks until released, like a client that stopped reading
+            if (gate != null && waited.compareAndSet(false, true)) {
+                firstBatchSize.set(updates.size());
+                gate.await();
+            }
+            updates.forEach(u -> received.merge(u.getProductName(), u.getPrice(), Math::max));
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+
+        @Override
+        public void heartbeat() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        private synchronized boolean awaitPrices(int products, double price, long timeout, TimeUnit unit)
+                throws InterruptedException {
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            while (received.size() < products || received.values().stream().anyMatch(p -> p < price)) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+            return true;
+        }
+
+        private synchronized boolean awaitLatest(String productName, double price, long timeout, TimeUnit unit)
+                throws InterruptedException {
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            while (!Double.valueOf(price).equals(received.get(productName))) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+            return true;
+        }
+    }
+}